@@ -1,5 +1,6 @@
 import java.lang.reflect.Array;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class ArrayHelper {
     public static <T> T[] removeElementFromArray(T[] array, int index){
@@ -20,8 +21,7 @@ public class ArrayHelper {
         return array.clone();
     }
 
-    public static <T> T[] shuffleArray(T[] array){
-        Random rnd = new Random();
+    public static <T> T[] shuffleArray(T[] array, RandomStream rnd){
         for (int i = array.length - 1; i > 0; i--)
         {
             int index = rnd.nextInt(i + 1);
@@ -32,4 +32,178 @@ public class ArrayHelper {
         }
         return array;
     }
-}
\ No newline at end of file
+
+    public static int[] shuffleArray(int[] array, RandomStream rnd){
+        return shuffleArray(array, array.length, rnd);
+    }
+
+    // Shuffles only the first length entries
+    public static int[] shuffleArray(int[] array, int length, RandomStream rnd){
+        for (int i = length - 1; i > 0; i--)
+        {
+            int index = rnd.nextInt(i + 1);
+            // Simple swap
+            int valueToSwap = array[index];
+            array[index] = array[i];
+            array[i] = valueToSwap;
+        }
+        return array;
+    }
+
+    // Stable ascending sort of the row indices in order by key[row], so rows never have to be moved.
+    // Insertion sort for small runs, merge sort above that, forked on the common pool for large arrays.
+    public static void sortIndicesByKey(int[] order, int length, double[] key){
+        sortIndicesByKey(order, length, key, null);
+    }
+
+    // Same as above, buffer (at least length entries) is reused as merge space when given
+    public static void sortIndicesByKey(int[] order, int length, double[] key, int[] buffer){
+        if (length < 32) {
+            insertionSortIndices(order, 0, length, key);
+            return;
+        }
+
+        if (buffer == null || buffer.length < length) {
+            buffer = new int[length];
+        }
+        System.arraycopy(order, 0, buffer, 0, length);
+        if (length >= Constants.PARALLEL_SORT_THRESHOLD) {
+            ForkJoinPool.commonPool().invoke(new IndexSortTask(buffer, order, 0, length, key));
+        }
+        else {
+            mergeSortIndices(buffer, order, 0, length, key);
+        }
+    }
+
+    // Sorts source[from, to) into target. Both arrays must hold the same values in that range.
+    private static void mergeSortIndices(int[] source, int[] target, int from, int to, double[] key){
+        if (to - from < 32) {
+            insertionSortIndices(target, from, to, key);
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        mergeSortIndices(target, source, from, middle, key);
+        mergeSortIndices(target, source, middle, to, key);
+        mergeIndices(source, target, from, middle, to, key);
+    }
+
+    private static void mergeIndices(int[] source, int[] target, int from, int middle, int to, double[] key){
+        int left = from;
+        int right = middle;
+        for (int k = from; k < to; k++) {
+            if (left < middle && (right >= to || Double.compare(key[source[left]], key[source[right]]) <= 0)) {
+                target[k] = source[left++];
+            }
+            else {
+                target[k] = source[right++];
+            }
+        }
+    }
+
+    private static final class IndexSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] source;
+        private final int[] target;
+        private final int from;
+        private final int to;
+        private final double[] key;
+
+        IndexSortTask(int[] source, int[] target, int from, int to, double[] key) {
+            this.source = source;
+            this.target = target;
+            this.from = from;
+            this.to = to;
+            this.key = key;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from < Constants.PARALLEL_SORT_THRESHOLD) {
+                mergeSortIndices(this.source, this.target, this.from, this.to, this.key);
+                return;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(
+                new IndexSortTask(this.target, this.source, this.from, middle, this.key),
+                new IndexSortTask(this.target, this.source, middle, this.to, this.key));
+            mergeIndices(this.source, this.target, this.from, middle, this.to, this.key);
+        }
+    }
+
+    // Indices of the count largest keys among the first length, largest first.
+    // Partial selection with a min-heap of size count, O(length * log(count)).
+    public static int[] selectTopIndices(double[] key, int length, int count){
+        return selectTopIndices(key, length, count, new int[count]);
+    }
+
+    // Same as above, written into the first count entries of heap
+    public static int[] selectTopIndices(double[] key, int length, int count, int[] heap){
+        int heapSize = 0;
+        for (int i = 0; i < length; i++) {
+            if (heapSize < count) {
+                heap[heapSize] = i;
+                siftUp(heap, heapSize++, key);
+            }
+            else if (count > 0 && key[i] > key[heap[0]]) {
+                heap[0] = i;
+                siftDown(heap, 0, heapSize, key);
+            }
+        }
+
+        // Popping the minimum to the back leaves the heap sorted largest first
+        for (int end = heapSize - 1; end > 0; end--) {
+            int smallest = heap[0];
+            heap[0] = heap[end];
+            heap[end] = smallest;
+            siftDown(heap, 0, end, key);
+        }
+        return heap;
+    }
+
+    private static void siftUp(int[] heap, int position, double[] key){
+        int value = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (key[heap[parent]] <= key[value]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            position = parent;
+        }
+        heap[position] = value;
+    }
+
+    private static void siftDown(int[] heap, int position, int size, double[] key){
+        int value = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && key[heap[child + 1]] < key[heap[child]]) {
+                child++;
+            }
+            if (key[value] <= key[heap[child]]) {
+                break;
+            }
+            heap[position] = heap[child];
+            position = child;
+        }
+        heap[position] = value;
+    }
+
+    private static void insertionSortIndices(int[] order, int from, int to, double[] key){
+        for (int i = from + 1; i < to; i++) {
+            int current = order[i];
+            int j = i - 1;
+            while (j >= from && Double.compare(key[order[j]], key[current]) > 0) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = current;
+        }
+    }
+}
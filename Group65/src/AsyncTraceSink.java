@@ -0,0 +1,179 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * TraceSink that hands records to a background writer through a single-producer,
+ * single-consumer ring buffer, so the generation loop never blocks on I/O. The loop only waits
+ * when the writer falls a whole buffer behind. Every sampling-th cycle is kept.
+ */
+public class AsyncTraceSink implements TraceSink {
+    private static final int CAPACITY = 1 << 12;
+    private static final int MASK = CAPACITY - 1;
+
+    private final int[] cycles = new int[CAPACITY];
+    private final int[] evaluations = new int[CAPACITY];
+    private final double[] maxFitness = new double[CAPACITY];
+    private final double[] highestFitness = new double[CAPACITY];
+    // Written by the producer only, read by the writer
+    private volatile long head;
+    // Written by the writer only, read by the producer
+    private volatile long tail;
+    private volatile boolean closed;
+
+    private final TraceFormat format;
+    private final int sampling;
+    private final boolean header;
+    private final DataOutputStream output;
+    private final Thread writer;
+    private volatile IOException failure;
+
+    private AsyncTraceSink(TraceFormat format, int sampling, boolean header, OutputStream destination) {
+        this.format = format;
+        this.sampling = Math.max(1, sampling);
+        this.header = header;
+        this.output = new DataOutputStream(new BufferedOutputStream(destination, 1 << 16));
+        this.writer = new Thread(this::drain, "trace-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Sink for the trace settings of config: stdout unless a trace file is given
+    public static TraceSink open(EvolutionConfig config) {
+        return open(config, false);
+    }
+
+    // With append, a run resumed from a checkpoint continues the trace file of the run that wrote
+    // it, without a second CSV header unless the file is still empty. Cycles between that
+    // checkpoint and the crash appear twice.
+    public static TraceSink open(EvolutionConfig config, boolean append) {
+        if (config.traceFormat == TraceFormat.NONE) {
+            return TraceSink.NULL;
+        }
+
+        OutputStream destination;
+        boolean header = true;
+        if (config.traceFile == null || config.traceFile.isEmpty()) {
+            // Closing the sink must not close stdout
+            destination = new FilterOutputStream(System.out) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    this.out.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    this.flush();
+                }
+            };
+        }
+        else {
+            // Length 0 if the file does not exist yet
+            header = !append || new File(config.traceFile).length() == 0;
+            try {
+                destination = new FileOutputStream(config.traceFile, append);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Cannot open trace file " + config.traceFile, e);
+            }
+        }
+        return new AsyncTraceSink(config.traceFormat, config.traceSampling, header, destination);
+    }
+
+    public void record(int cycle, int evaluations, double maxFitness, double highestFitness) {
+        if (cycle % this.sampling != 0) {
+            return;
+        }
+
+        long position = this.head;
+        while (position - this.tail >= CAPACITY) {
+            // Writer is a full buffer behind, wait for it instead of dropping records
+            LockSupport.parkNanos(10000);
+        }
+        int slot = (int) (position & MASK);
+        this.cycles[slot] = cycle;
+        this.evaluations[slot] = evaluations;
+        this.maxFitness[slot] = maxFitness;
+        this.highestFitness[slot] = highestFitness;
+        // Volatile write publishes the slot to the writer
+        this.head = position + 1;
+    }
+
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (this.failure != null) {
+            throw new UncheckedIOException("Writing the trace failed", this.failure);
+        }
+    }
+
+    private void drain() {
+        try {
+            if (this.format == TraceFormat.CSV && this.header) {
+                this.writeText("cycle,evaluations,maxFitness,highestFitness\n");
+            }
+            while (true) {
+                boolean finished = this.closed;
+                long available = this.head;
+                long position = this.tail;
+                while (position < available) {
+                    this.write((int) (position & MASK));
+                    position++;
+                    this.tail = position;
+                }
+                if (finished) {
+                    break;
+                }
+                if (position == this.head) {
+                    this.output.flush();
+                    LockSupport.parkNanos(1000000);
+                }
+            }
+            this.output.close();
+        }
+        catch (IOException e) {
+            this.failure = e;
+            // Keep consuming so the generation loop cannot get stuck on a full buffer
+            while (!this.closed || this.tail < this.head) {
+                this.tail = this.head;
+                LockSupport.parkNanos(1000000);
+            }
+        }
+    }
+
+    private void write(int slot) throws IOException {
+        switch (this.format) {
+            case TEXT:
+                this.writeText(this.maxFitness[slot] + "\n");
+                break;
+            case CSV:
+                this.writeText(this.cycles[slot] + "," + this.evaluations[slot] + "," + this.maxFitness[slot] + "," + this.highestFitness[slot] + "\n");
+                break;
+            case BINARY:
+                this.output.writeInt(this.cycles[slot]);
+                this.output.writeInt(this.evaluations[slot]);
+                this.output.writeDouble(this.maxFitness[slot]);
+                this.output.writeDouble(this.highestFitness[slot]);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        this.output.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+}
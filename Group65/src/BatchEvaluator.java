@@ -0,0 +1,8 @@
+/**
+ * Evaluates a whole generation in one call. Genomes are passed as the flat row-major matrix
+ * used by Population, and fitness[row] receives the fitness of row (higher is better) for every
+ * row in [0, rows).
+ */
+public interface BatchEvaluator {
+    void evaluate(double[] genomes, int rows, int dimensions, double[] fitness);
+}
@@ -0,0 +1,25 @@
+import javabbob.JNIfgeneric;
+
+/**
+ * BatchEvaluator on top of an initialized BBOB backend, one evaluate call per genome. The
+ * cjavabbob library has no batch entry point, BbobFunction avoids JNI altogether.
+ * BBOB minimizes, so fitness values are negated to keep "higher is better" for Population.
+ */
+public class BbobBatchEvaluator implements BatchEvaluator {
+    private final JNIfgeneric fgeneric;
+    private double[] buffer = new double[0];
+
+    public BbobBatchEvaluator(JNIfgeneric fgeneric) {
+        this.fgeneric = fgeneric;
+    }
+
+    public void evaluate(double[] genomes, int rows, int dimensions, double[] fitness) {
+        if (this.buffer.length != dimensions) {
+            this.buffer = new double[dimensions];
+        }
+        for (int row = 0; row < rows; row++) {
+            System.arraycopy(genomes, row * dimensions, this.buffer, 0, dimensions);
+            fitness[row] = -this.fgeneric.evaluate(this.buffer);
+        }
+    }
+}
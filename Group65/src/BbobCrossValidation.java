@@ -0,0 +1,149 @@
+import javabbob.JNIfgeneric;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+
+/**
+ * Checks BbobFunction against the native cjavabbob library: for every (function, instance,
+ * dimension) both evaluate the same random genomes, some of them outside [-5, 5] so the
+ * boundary penalty is covered, and the ftarget of both is compared. Prints the largest relative
+ * difference and the time per evaluation of both backends, and exits with status 1 if any
+ * value or ftarget differs by more than -tolerance.
+ *
+ * java -Djava.library.path=. -cp contest.jar:. BbobCrossValidation -functions=1,12,17,23 -instances=1-5 -dimensions=2,5,10,20,40 -points=1000
+ */
+public class BbobCrossValidation {
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final int WARMUP_PASSES = 10;
+
+    // Keeps the JIT from discarding the timed evaluations
+    public static volatile double sink;
+
+    public static void main(String[] args) throws Exception {
+        int[] functions = {1, 12, 17, 23};
+        int firstInstance = 1;
+        int lastInstance = 5;
+        int[] dimensions = {2, 5, 10, 20, 40};
+        int points = 1000;
+        double tolerance = 1e-9;
+        long seed = 1;
+
+        for (String arg : args) {
+            String[] pair = CommandLine.option(arg);
+            switch (pair[0]) {
+                case "functions": functions = CommandLine.intList(pair[1]); break;
+                case "instances":
+                    String[] range = pair[1].split("-", 2);
+                    firstInstance = Integer.parseInt(range[0]);
+                    lastInstance = Integer.parseInt(range[range.length - 1]);
+                    break;
+                case "dimensions": dimensions = CommandLine.intList(pair[1]); break;
+                case "points": points = Integer.parseInt(pair[1]); break;
+                case "tolerance": tolerance = Double.parseDouble(pair[1]); break;
+                case "seed": seed = Long.parseLong(pair[1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        // The native library insists on writing its data files somewhere
+        String directory = Files.createTempDirectory("bbob-validation").toString();
+        JNIfgeneric.makeBBOBdirs(directory, false);
+        JNIfgeneric fgeneric = new JNIfgeneric();
+        JNIfgeneric.Params params = new JNIfgeneric.Params();
+        params.algName = "Group65";
+
+        RandomStream.setSeed(seed);
+        RandomStream random = RandomStream.newStream();
+        boolean passed = true;
+        System.out.println(String.format("%-9s %8s %4s %14s %12s %12s %12s", "function", "instance", "dim", "max rel diff",
+            "java ns/op", "jni ns/op", "java B/op"));
+        for (int function : functions) {
+            for (int dimension : dimensions) {
+                for (int instance = firstInstance; instance <= lastInstance; instance++) {
+                    BbobFunction java = new BbobFunction(function, instance, dimension);
+                    fgeneric.initBBOB(function, instance, dimension, directory, params);
+                    try {
+                        double[] genomes = new double[points * dimension];
+                        for (int i = 0; i < genomes.length; i++) {
+                            genomes[i] = -6 + 12 * random.nextDouble();
+                        }
+
+                        double worst = relativeDifference(java.getFopt() + BbobFunction.PRECISION, fgeneric.getFtarget());
+                        double[] genome = new double[dimension];
+                        for (int row = 0; row < points; row++) {
+                            System.arraycopy(genomes, row * dimension, genome, 0, dimension);
+                            worst = Math.max(worst, relativeDifference(java.value(genome), fgeneric.evaluate(genome)));
+                        }
+
+                        double javaNanos = time(java, genomes, points, dimension, genome);
+                        long before = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+                        time(java, genomes, points, dimension, genome);
+                        double bytes = (double) (THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - before) / points;
+                        double nativeNanos = time(fgeneric, genomes, points, dimension, genome);
+
+                        boolean ok = worst <= tolerance;
+                        passed &= ok;
+                        System.out.println(String.format("f%-8d %8d %4d %14.3e %12.1f %12.1f %12.1f%s", function, instance, dimension,
+                            worst, javaNanos, nativeNanos, bytes, ok ? "" : "  MISMATCH"));
+                    }
+                    finally {
+                        fgeneric.exitBBOB();
+                    }
+                }
+            }
+        }
+        deleteRecursively(new File(directory));
+
+        if (!passed) {
+            System.out.println("BbobFunction differs from the native library by more than " + tolerance);
+            System.exit(1);
+        }
+    }
+
+    // Relative to the larger magnitude, absolute near zero
+    private static double relativeDifference(double a, double b) {
+        return Math.abs(a - b) / Math.max(1, Math.max(Math.abs(a), Math.abs(b)));
+    }
+
+    // Time per evaluation over all genomes, the first passes warm up the JIT
+    private static double time(BbobFunction function, double[] genomes, int points, int dimension, double[] genome) {
+        double sum = 0;
+        long start = 0;
+        for (int pass = 0; pass < WARMUP_PASSES + 1; pass++) {
+            start = System.nanoTime();
+            for (int row = 0; row < points; row++) {
+                System.arraycopy(genomes, row * dimension, genome, 0, dimension);
+                sum += function.value(genome);
+            }
+        }
+        sink = sum;
+        return (double) (System.nanoTime() - start) / points;
+    }
+
+    private static double time(JNIfgeneric fgeneric, double[] genomes, int points, int dimension, double[] genome) {
+        double sum = 0;
+        long start = 0;
+        for (int pass = 0; pass < WARMUP_PASSES + 1; pass++) {
+            start = System.nanoTime();
+            for (int row = 0; row < points; row++) {
+                System.arraycopy(genomes, row * dimension, genome, 0, dimension);
+                sum += fgeneric.evaluate(genome);
+            }
+        }
+        sink = sum;
+        return (double) (System.nanoTime() - start) / points;
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        file.delete();
+    }
+}
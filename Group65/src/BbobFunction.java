@@ -0,0 +1,334 @@
+/**
+ * Pure-Java port of the noiseless BBOB functions the contest uses: f1 sphere, f12 bent cigar,
+ * f17 Schaffers F7 and f23 Katsuura. Optimum, rotations and scalings of an instance are
+ * generated with the same random numbers as the native cjavabbob library, so the values agree
+ * with JNIfgeneric.evaluate up to rounding (see BbobCrossValidation), without the native
+ * library, the JNI crossing or any BBOB data files.
+ *
+ * Like BbobBatchEvaluator, the values are negated to keep "higher is better". evaluate allocates
+ * nothing. An instance is not thread-safe, create hands out instances that share the read-only
+ * tables and have their own scratch vectors.
+ *
+ * Supports 2 to 40 dimensions like BBOB (the native library overflows a buffer above 54).
+ */
+public final class BbobFunction implements FitnessFunction, FitnessFunctionFactory {
+    // BBOB target precision, ftarget = fopt + PRECISION
+    public static final double PRECISION = 1e-8;
+
+    private final int function;
+    private final int instance;
+    private final int dimensions;
+    private final double fopt;
+    private final double[] xopt;
+    // Row-major dimensions x dimensions matrices, null where the function does not use them
+    private final double[] rotation;
+    private final double[] linear;
+    // Exponents of the asymmetric transformation, beta * i / (dimensions - 1)
+    private final double[] asymmetry;
+    private final double katsuuraExponent;
+
+    private final double[] z;
+    private final double[] y;
+
+    public BbobFunction(int function, int instance, int dimensions) {
+        if (function != 1 && function != 12 && function != 17 && function != 23) {
+            throw new IllegalArgumentException("BBOB function f" + function + " is not implemented, only f1, f12, f17 and f23");
+        }
+        if (dimensions < 2 || dimensions > 40) {
+            throw new IllegalArgumentException("BBOB functions are defined for 2 to 40 dimensions, got " + dimensions);
+        }
+
+        this.function = function;
+        this.instance = instance;
+        this.dimensions = dimensions;
+        int seed = function + 10000 * instance;
+        this.fopt = computeFopt(function, instance);
+        this.xopt = computeXopt(function == 12 ? seed + 1000000 : seed, dimensions);
+        this.rotation = function == 1 ? null : computeRotation(seed + 1000000, dimensions);
+        this.asymmetry = new double[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            this.asymmetry[i] = 0.5 * (double) i / (double) (dimensions - 1);
+        }
+
+        if (function == 17) {
+            // scales[i] * rot2[i][j], the same products the C code forms in its inner loop
+            double[] rot2 = computeRotation(seed, dimensions);
+            this.linear = new double[dimensions * dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                double scale = Math.pow(Math.sqrt(10.0), (double) i / (double) (dimensions - 1));
+                for (int j = 0; j < dimensions; j++) {
+                    this.linear[i * dimensions + j] = scale * rot2[i * dimensions + j];
+                }
+            }
+        }
+        else if (function == 23) {
+            // rotation * diag(sqrt(100)^(k / (dimensions - 1))) * rot2, summed in the C order
+            double[] rot2 = computeRotation(seed, dimensions);
+            this.linear = new double[dimensions * dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                for (int j = 0; j < dimensions; j++) {
+                    double sum = 0;
+                    for (int k = 0; k < dimensions; k++) {
+                        sum += this.rotation[i * dimensions + k] * Math.pow(Math.sqrt(100.0), (double) k / (double) (dimensions - 1))
+                            * rot2[k * dimensions + j];
+                    }
+                    this.linear[i * dimensions + j] = sum;
+                }
+            }
+        }
+        else {
+            this.linear = null;
+        }
+        this.katsuuraExponent = 10.0 / Math.pow(dimensions, 1.2);
+
+        this.z = new double[dimensions];
+        this.y = new double[dimensions];
+    }
+
+    // Same function and instance, shares the tables
+    private BbobFunction(BbobFunction other) {
+        this.function = other.function;
+        this.instance = other.instance;
+        this.dimensions = other.dimensions;
+        this.fopt = other.fopt;
+        this.xopt = other.xopt;
+        this.rotation = other.rotation;
+        this.linear = other.linear;
+        this.asymmetry = other.asymmetry;
+        this.katsuuraExponent = other.katsuuraExponent;
+        this.z = new double[other.dimensions];
+        this.y = new double[other.dimensions];
+    }
+
+    public FitnessFunction create() {
+        return new BbobFunction(this);
+    }
+
+    public int getFunction() {
+        return this.function;
+    }
+
+    public int getInstance() {
+        return this.instance;
+    }
+
+    public int getDimensions() {
+        return this.dimensions;
+    }
+
+    public double getFopt() {
+        return this.fopt;
+    }
+
+    // Same as ProcessPoolEvaluator.getTargetFitness, already negated
+    public double getTargetFitness() {
+        return -(this.fopt + PRECISION);
+    }
+
+    public double evaluate(double[] genome) {
+        return -this.value(genome);
+    }
+
+    // The BBOB value itself, to be minimized
+    public double value(double[] x) {
+        switch (this.function) {
+            case 1: return this.sphere(x);
+            case 12: return this.bentCigar(x);
+            case 17: return this.schaffers(x);
+            default: return this.katsuura(x);
+        }
+    }
+
+    private double sphere(double[] x) {
+        double sum = 0;
+        for (int i = 0; i < this.dimensions; i++) {
+            double r = x[i] - this.xopt[i];
+            sum += r * r;
+        }
+        return sum + this.fopt;
+    }
+
+    private double bentCigar(double[] x) {
+        int n = this.dimensions;
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += this.rotation[i * n + j] * (x[j] - this.xopt[j]);
+            }
+            this.z[i] = sum > 0 ? Math.pow(sum, 1 + this.asymmetry[i] * Math.sqrt(sum)) : sum;
+        }
+        double value = 0;
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += this.rotation[i * n + j] * this.z[j];
+            }
+            value += i == 0 ? sum * sum : 1e6 * sum * sum;
+        }
+        return value + this.fopt;
+    }
+
+    private double schaffers(double[] x) {
+        int n = this.dimensions;
+        double penalty = this.penalty(x);
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += this.rotation[i * n + j] * (x[j] - this.xopt[j]);
+            }
+            this.z[i] = sum > 0 ? Math.pow(sum, 1 + this.asymmetry[i] * Math.sqrt(sum)) : sum;
+        }
+        this.transform(this.z, this.y);
+
+        double sum = 0;
+        for (int i = 0; i < n - 1; i++) {
+            double s = this.y[i] * this.y[i] + this.y[i + 1] * this.y[i + 1];
+            double sine = Math.sin(50 * Math.pow(s, 0.1));
+            sum += Math.pow(s, 0.25) * (sine * sine + 1);
+        }
+        double mean = sum / (double) (n - 1);
+        return mean * mean + (this.fopt + 10 * penalty);
+    }
+
+    private double katsuura(double[] x) {
+        int n = this.dimensions;
+        double penalty = this.penalty(x);
+        for (int j = 0; j < n; j++) {
+            this.z[j] = x[j] - this.xopt[j];
+        }
+        this.transform(this.z, this.y);
+
+        double product = 1;
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            double power = 1;
+            for (int j = 1; j < 33; j++) {
+                // Exact powers of two, like pow(2, j)
+                power *= 2;
+                double scaled = this.y[i] * power;
+                sum += Math.abs(scaled - Math.floor(scaled + 0.5)) / power;
+            }
+            product *= 1 + sum * (double) (i + 1);
+        }
+        return 10.0 / (double) n / (double) n * (Math.pow(product, this.katsuuraExponent) - 1) + (this.fopt + penalty);
+    }
+
+    // y = linear * v
+    private void transform(double[] v, double[] y) {
+        int n = this.dimensions;
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++) {
+                sum += this.linear[i * n + j] * v[j];
+            }
+            y[i] = sum;
+        }
+    }
+
+    // Squared distance of x outside [-5, 5] in every coordinate
+    private double penalty(double[] x) {
+        double sum = 0;
+        for (int i = 0; i < this.dimensions; i++) {
+            double outside = Math.abs(x[i]) - 5;
+            if (outside > 0) {
+                sum += outside * outside;
+            }
+        }
+        return sum;
+    }
+
+    // Uniform numbers in (0, 1] from the BBOB generator: a Park-Miller sequence shuffled
+    // through a table of 32 values
+    static void unif(double[] r, int count, int seed) {
+        int[] table = new int[32];
+        int current = Math.max(1, Math.abs(seed));
+        for (int i = 39; i >= 0; i--) {
+            current = nextParkMiller(current);
+            if (i < 32) {
+                table[i] = current;
+            }
+        }
+        int shuffled = table[0];
+        for (int i = 0; i < count; i++) {
+            current = nextParkMiller(current);
+            int slot = shuffled / 67108865;
+            shuffled = table[slot];
+            table[slot] = current;
+            r[i] = shuffled / 2.147483647e9;
+            if (r[i] == 0) {
+                r[i] = 1e-99;
+            }
+        }
+    }
+
+    private static int nextParkMiller(int seed) {
+        int quotient = seed / 127773;
+        int next = 16807 * (seed - quotient * 127773) - 2836 * quotient;
+        return next < 0 ? next + 2147483647 : next;
+    }
+
+    // Normal numbers by Box-Muller from 2 * count uniform numbers
+    static void gauss(double[] g, int count, int seed) {
+        double[] uniform = new double[2 * count];
+        unif(uniform, 2 * count, seed);
+        for (int i = 0; i < count; i++) {
+            g[i] = Math.sqrt(-2 * Math.log(uniform[i])) * Math.cos(2 * Math.PI * uniform[count + i]);
+            if (g[i] == 0) {
+                g[i] = 1e-99;
+            }
+        }
+    }
+
+    static double[] computeXopt(int seed, int dimensions) {
+        double[] xopt = new double[dimensions];
+        unif(xopt, dimensions, seed);
+        for (int i = 0; i < dimensions; i++) {
+            xopt[i] = 8 * Math.floor(1e4 * xopt[i]) / 1e4 - 4;
+            if (xopt[i] == 0) {
+                xopt[i] = -1e-5;
+            }
+        }
+        return xopt;
+    }
+
+    static double computeFopt(int function, int instance) {
+        int seed = function + 10000 * instance;
+        double[] first = new double[1];
+        double[] second = new double[1];
+        gauss(first, 1, seed);
+        gauss(second, 1, seed + 1);
+        return Math.min(1000, Math.max(-1000, Math.floor(100 * 100 * first[0] / second[0] + 0.5) / 100));
+    }
+
+    // Random orthogonal matrix, Gram-Schmidt on the columns of a Gaussian matrix
+    static double[] computeRotation(int seed, int dimensions) {
+        int n = dimensions;
+        double[] g = new double[n * n];
+        gauss(g, n * n, seed);
+        double[] b = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                b[i * n + j] = g[j * n + i];
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                double product = 0;
+                for (int k = 0; k < n; k++) {
+                    product += b[k * n + i] * b[k * n + j];
+                }
+                for (int k = 0; k < n; k++) {
+                    b[k * n + i] -= product * b[k * n + j];
+                }
+            }
+            double product = 0;
+            for (int k = 0; k < n; k++) {
+                product += b[k * n + i] * b[k * n + i];
+            }
+            for (int k = 0; k < n; k++) {
+                b[k * n + i] /= Math.sqrt(product);
+            }
+        }
+        return b;
+    }
+}
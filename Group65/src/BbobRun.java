@@ -0,0 +1,117 @@
+import javabbob.JNIfgeneric;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the engine on a BBOB function of the native cjavabbob library instead of a contest
+ * evaluation. With -workers=n the genomes are evaluated by n EvaluationWorker processes
+ * (ProcessPoolEvaluator), with -workers=0 in this JVM. -backend=java evaluates f1, f12, f17
+ * and f23 with BbobFunction instead, on max(1, n) threads and without the native library or
+ * data files. Engine settings come from the usual -D properties. The run stops as soon as it
+ * reaches the BBOB target (-DtargetFitness overrides it, -stop=false spends the whole budget).
+ *
+ * java -Djava.library.path=. -cp contest.jar:. BbobRun -function=2 -instance=1 -dimensions=10 -evaluations=100000 -workers=4
+ */
+public class BbobRun {
+    public static void main(String[] args) throws IOException {
+        int function = 1;
+        int instance = 1;
+        int dimensions = Constants.DIMENSIONS;
+        int evaluations = 100000;
+        int workers = Runtime.getRuntime().availableProcessors();
+        long seed = 1;
+        String data = "bbob-data";
+        boolean stop = true;
+        String backend = "native";
+
+        for (String arg : args) {
+            String[] pair = CommandLine.option(arg);
+            switch (pair[0]) {
+                case "function": function = Integer.parseInt(pair[1]); break;
+                case "instance": instance = Integer.parseInt(pair[1]); break;
+                case "dimensions": dimensions = Integer.parseInt(pair[1]); break;
+                case "evaluations": evaluations = Integer.parseInt(pair[1]); break;
+                case "workers": workers = Integer.parseInt(pair[1]); break;
+                case "seed": seed = Long.parseLong(pair[1]); break;
+                case "data": data = pair[1]; break;
+                case "stop": stop = Boolean.parseBoolean(pair[1]); break;
+                case "backend": backend = pair[1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        EvolutionConfig config = EvolutionConfig.fromSystemProperties();
+        config.dimensions = dimensions;
+        boolean stopAtFtarget = stop && Double.isNaN(config.targetFitness);
+        RandomStream.setSeed(seed);
+        RandomStream random = RandomStream.newStream();
+
+        RunResult result;
+        double targetFitness;
+        long start = System.nanoTime();
+        if (backend.equals("java")) {
+            BbobFunction bbob = new BbobFunction(function, instance, dimensions);
+            targetFitness = bbob.getTargetFitness();
+            if (stopAtFtarget) {
+                config.targetFitness = targetFitness;
+            }
+            ParallelEvaluator evaluator = new ParallelEvaluator(bbob, Math.max(1, workers));
+            try {
+                result = Evolution.evolve(evaluator, bbob, evaluations, config, random);
+            }
+            finally {
+                evaluator.shutdown();
+            }
+        }
+        else if (!backend.equals("native")) {
+            throw new IllegalArgumentException("Unknown backend " + backend + ", expected java or native");
+        }
+        else if (workers > 0) {
+            List<String> workerArguments = new ArrayList<>();
+            workerArguments.add("-function=" + function);
+            workerArguments.add("-instance=" + instance);
+            workerArguments.add("-dimensions=" + dimensions);
+            workerArguments.add("-data=" + data);
+            ProcessPoolEvaluator pool = new ProcessPoolEvaluator(workers, workerArguments);
+            try {
+                targetFitness = pool.getTargetFitness();
+                if (stopAtFtarget) {
+                    config.targetFitness = targetFitness;
+                }
+                result = Evolution.evolve(pool, null, evaluations, config, random);
+            }
+            finally {
+                pool.shutdown();
+            }
+        }
+        else {
+            String directory = new File(data, "local").getPath();
+            JNIfgeneric.makeBBOBdirs(directory, false);
+            JNIfgeneric fgeneric = new JNIfgeneric();
+            JNIfgeneric.Params params = new JNIfgeneric.Params();
+            params.algName = "Group65";
+            fgeneric.initBBOB(function, instance, dimensions, directory, params);
+            try {
+                targetFitness = -fgeneric.getFtarget();
+                if (stopAtFtarget) {
+                    config.targetFitness = targetFitness;
+                }
+                result = Evolution.evolve(new BbobBatchEvaluator(fgeneric), null, evaluations, config, random);
+            }
+            finally {
+                fgeneric.exitBBOB();
+            }
+        }
+
+        System.out.println(String.format("f%d instance %d, %d dimensions, %d workers: best fitness %s (target %s), %d evaluations in %.1f s",
+            function, instance, dimensions, workers, result.maxFitness, targetFitness, result.evaluations,
+            (System.nanoTime() - start) / 1e9));
+        if (result.evaluationsToTarget >= 0) {
+            System.out.println(String.format("target reached after %d evaluations in %.3f s",
+                result.evaluationsToTarget, result.nanosToTarget / 1e9));
+        }
+    }
+}
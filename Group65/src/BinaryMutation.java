@@ -1,6 +1,6 @@
 public class BinaryMutation{
-    public static int[] mutate(int[] arrayToMutate){
-        int randomIndex = (int)(Math.random() * arrayToMutate.length);
+    public static int[] mutate(int[] arrayToMutate, RandomStream random){
+        int randomIndex = random.nextInt(arrayToMutate.length);
         if (arrayToMutate[randomIndex] == 1){
             arrayToMutate[randomIndex] = 0;
         }
@@ -0,0 +1,23 @@
+/**
+ * BatchEvaluator decorator that reserves every evaluation on an EvaluationBudget before passing
+ * the batch on, and records the fitness values that come back on it. A batch that does not fit
+ * is rejected as a whole, before anything is evaluated.
+ */
+public class BudgetedEvaluator implements BatchEvaluator {
+    private final BatchEvaluator delegate;
+    private final EvaluationBudget budget;
+
+    public BudgetedEvaluator(BatchEvaluator delegate, EvaluationBudget budget) {
+        this.delegate = delegate;
+        this.budget = budget;
+    }
+
+    public void evaluate(double[] genomes, int rows, int dimensions, double[] fitness) {
+        int first = this.budget.reserve(rows);
+        if (first < 0) {
+            throw new EvaluationBudget.ExhaustedException(rows, this.budget.getRemaining());
+        }
+        this.delegate.evaluate(genomes, rows, dimensions, fitness);
+        this.budget.record(fitness, 0, rows, first);
+    }
+}
@@ -0,0 +1,125 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BatchEvaluator decorator that remembers the fitness of the last capacity genomes it has seen,
+ * keyed by their exact bit patterns, and only forwards genomes it does not know yet. Every hit
+ * is an evaluation that did not have to be paid for. Not thread-safe, call it from the
+ * generation loop only.
+ */
+public class CachingEvaluator implements BatchEvaluator {
+    private final BatchEvaluator delegate;
+    private final LinkedHashMap<GenomeKey, Double> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    private int[] missingRows = new int[0];
+    private GenomeKey[] missingKeys = new GenomeKey[0];
+    private double[] missingGenomes = new double[0];
+    private double[] missingFitness = new double[0];
+
+    public CachingEvaluator(BatchEvaluator delegate, final int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Cache capacity must be positive, got " + capacity);
+        }
+
+        this.delegate = delegate;
+        // Access order turns the map into an LRU list
+        this.entries = new LinkedHashMap<GenomeKey, Double>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<GenomeKey, Double> eldest) {
+                if (size() > capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public void evaluate(double[] genomes, int rows, int dimensions, double[] fitness) {
+        if (this.missingRows.length < rows) {
+            this.missingRows = new int[rows];
+            this.missingKeys = new GenomeKey[rows];
+            this.missingFitness = new double[rows];
+        }
+        if (this.missingGenomes.length < rows * dimensions) {
+            this.missingGenomes = new double[rows * dimensions];
+        }
+
+        int missing = 0;
+        for (int row = 0; row < rows; row++) {
+            GenomeKey key = new GenomeKey(genomes, row * dimensions, dimensions);
+            Double known = this.entries.get(key);
+            if (known != null) {
+                fitness[row] = known;
+                this.hits++;
+                continue;
+            }
+
+            // The same genome may appear twice in one batch, the second copy is still a miss here
+            System.arraycopy(genomes, row * dimensions, this.missingGenomes, missing * dimensions, dimensions);
+            this.missingRows[missing] = row;
+            this.missingKeys[missing] = key;
+            missing++;
+        }
+        this.misses += missing;
+
+        if (missing > 0) {
+            this.delegate.evaluate(this.missingGenomes, missing, dimensions, this.missingFitness);
+            for (int i = 0; i < missing; i++) {
+                fitness[this.missingRows[i]] = this.missingFitness[i];
+                this.entries.put(this.missingKeys[i], this.missingFitness[i]);
+                this.missingKeys[i] = null;
+            }
+        }
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    public double getHitRate() {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+
+    // On stderr, stdout carries the trace that parameter_tuning.ps1 parses
+    public void printStatistics() {
+        System.err.println("Fitness cache: " + this.hits + " hits, " + this.misses + " misses, "
+            + this.evictions + " evictions, hit rate " + this.getHitRate());
+    }
+
+    private static final class GenomeKey {
+        private final long[] bits;
+        private final int hash;
+
+        GenomeKey(double[] genomes, int offset, int dimensions) {
+            this.bits = new long[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                this.bits[i] = Double.doubleToLongBits(genomes[offset + i]);
+            }
+            this.hash = Arrays.hashCode(this.bits);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof GenomeKey && Arrays.equals(this.bits, ((GenomeKey) other).bits);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Engine state of a generational run at the top of a cycle: the population (genome matrix,
+ * fitness, dirty flags and running statistics), the cycle counter, the evaluation budget with
+ * its early-stop state, the offspring sizes of the tail phase, the best fitness so far, the
+ * surrogate archive and the random stream. A run resumed from it continues exactly like the
+ * run that wrote it, as long as it uses the same engine and generation sizes, which are saved
+ * as well and checked by checkResumable.
+ *
+ * Binary layout: magic, version, then the fields in writeTo order, little-endian.
+ */
+public class Checkpoint {
+    private static final int MAGIC = 0x4b435645; // "EVCK" little-endian
+    private static final int VERSION = 3;
+
+    // Settings of the run that wrote the checkpoint
+    private final EngineType engine;
+    private final int populationSize;
+    private final int configuredFittestSize;
+    private final int configuredRecombinationSize;
+    private final int configuredMutationSize;
+
+    public final int cycle;
+    public final EvaluationBudget budget;
+    public final int fittestSize;
+    public final int recombinationSize;
+    public final int mutationSize;
+    public final double maxFitness;
+    public final int maxFitnessCycle;
+    public final Population population;
+    public final SurrogateModel surrogate;
+    private final RandomStream random;
+
+    public Checkpoint(
+        EvolutionConfig config,
+        int cycle,
+        EvaluationBudget budget,
+        int fittestSize,
+        int recombinationSize,
+        int mutationSize,
+        double maxFitness,
+        int maxFitnessCycle,
+        Population population,
+        SurrogateModel surrogate,
+        RandomStream random) {
+
+        this(config.engine, config.populationSize, config.fittestSize, config.recombinationSize, config.mutationSize, cycle,
+            budget, fittestSize, recombinationSize, mutationSize, maxFitness, maxFitnessCycle, population, surrogate, random);
+    }
+
+    private Checkpoint(
+        EngineType engine,
+        int populationSize,
+        int configuredFittestSize,
+        int configuredRecombinationSize,
+        int configuredMutationSize,
+        int cycle,
+        EvaluationBudget budget,
+        int fittestSize,
+        int recombinationSize,
+        int mutationSize,
+        double maxFitness,
+        int maxFitnessCycle,
+        Population population,
+        SurrogateModel surrogate,
+        RandomStream random) {
+
+        this.engine = engine;
+        this.populationSize = populationSize;
+        this.configuredFittestSize = configuredFittestSize;
+        this.configuredRecombinationSize = configuredRecombinationSize;
+        this.configuredMutationSize = configuredMutationSize;
+        this.cycle = cycle;
+        this.budget = budget;
+        this.fittestSize = fittestSize;
+        this.recombinationSize = recombinationSize;
+        this.mutationSize = mutationSize;
+        this.maxFitness = maxFitness;
+        this.maxFitnessCycle = maxFitnessCycle;
+        this.population = population;
+        this.surrogate = surrogate;
+        this.random = random;
+    }
+
+    public int encodedSize() {
+        return 12 * Integer.BYTES + Double.BYTES + 1 + EvaluationBudget.encodedSize() + RandomStream.encodedSize()
+            + this.population.encodedSize()
+            + (this.surrogate != null ? this.surrogate.encodedSize() : 0);
+    }
+
+    // Copies the state into buffer, which must have encodedSize() bytes left. Runs on the loop
+    // thread, so the population can change again as soon as this returns.
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(this.engine.ordinal());
+        buffer.putInt(this.populationSize);
+        buffer.putInt(this.configuredFittestSize);
+        buffer.putInt(this.configuredRecombinationSize);
+        buffer.putInt(this.configuredMutationSize);
+        buffer.putInt(this.cycle);
+        this.budget.writeTo(buffer);
+        buffer.putInt(this.fittestSize);
+        buffer.putInt(this.recombinationSize);
+        buffer.putInt(this.mutationSize);
+        buffer.putDouble(this.maxFitness);
+        buffer.putInt(this.maxFitnessCycle);
+        this.random.writeTo(buffer);
+        this.population.writeTo(buffer);
+        buffer.put((byte) (this.surrogate != null ? 1 : 0));
+        if (this.surrogate != null) {
+            this.surrogate.writeTo(buffer);
+        }
+    }
+
+    // Reads a checkpoint file. The saved random state is restored into random, which the
+    // resumed population and run then draw from.
+    public static Checkpoint read(Path path, EvolutionConfig config, RandomStream random) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read the whole file
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot read checkpoint " + path, e);
+        }
+        buffer.flip();
+
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException(path + " is not a version " + VERSION + " checkpoint");
+        }
+        EngineType engine = EngineType.values()[buffer.getInt()];
+        int populationSize = buffer.getInt();
+        int configuredFittestSize = buffer.getInt();
+        int configuredRecombinationSize = buffer.getInt();
+        int configuredMutationSize = buffer.getInt();
+        int cycle = buffer.getInt();
+        EvaluationBudget budget = EvaluationBudget.readFrom(buffer, config.targetFitness, config.plateauEvaluations);
+        int fittestSize = buffer.getInt();
+        int recombinationSize = buffer.getInt();
+        int mutationSize = buffer.getInt();
+        double maxFitness = buffer.getDouble();
+        int maxFitnessCycle = buffer.getInt();
+        random.readFrom(buffer);
+        Population population = Population.readFrom(buffer, config.parentSelectionType, config.rankingType, random);
+        SurrogateModel surrogate = buffer.get() != 0 ? SurrogateModel.readFrom(buffer) : null;
+        return new Checkpoint(engine, populationSize, configuredFittestSize, configuredRecombinationSize, configuredMutationSize,
+            cycle, budget, fittestSize, recombinationSize, mutationSize, maxFitness, maxFitnessCycle,
+            population, surrogate, random);
+    }
+
+    // Throws if a run with config and limit cannot continue from this checkpoint: only the
+    // single population GENETIC engine writes checkpoints, and different generation sizes would
+    // breed the saved population differently
+    public void checkResumable(EvolutionConfig config, int limit, String file) {
+        if (config.engine != EngineType.GENETIC || config.islands > 1) {
+            throw new IllegalStateException("Checkpoint " + file + " can only be resumed by the single population "
+                + EngineType.GENETIC + " engine, not " + config.engine + " on " + config.islands + " islands");
+        }
+        if (config.engine != this.engine) {
+            throw new IllegalStateException("Checkpoint " + file + " was written by the " + this.engine + " engine");
+        }
+        if (this.budget.getLimit() != limit) {
+            throw new IllegalStateException("Checkpoint " + file + " was written for " + this.budget.getLimit()
+                + " evaluations, not " + limit);
+        }
+        if (this.population.getDimensions() != config.dimensions) {
+            throw new IllegalStateException("Checkpoint " + file + " holds "
+                + this.population.getDimensions() + "-dimensional genomes, not " + config.dimensions);
+        }
+        if (config.populationSize != this.populationSize || config.fittestSize != this.configuredFittestSize
+            || config.recombinationSize != this.configuredRecombinationSize || config.mutationSize != this.configuredMutationSize) {
+            throw new IllegalStateException("Checkpoint " + file + " was written with populationSize=" + this.populationSize
+                + " fittestSize=" + this.configuredFittestSize + " recombinationSize=" + this.configuredRecombinationSize
+                + " mutationSize=" + this.configuredMutationSize + ", resume with the same sizes");
+        }
+    }
+
+    // Bulk copies through a DoubleBuffer view, far faster than one putDouble per value
+    static void putDoubles(ByteBuffer buffer, double[] values, int length) {
+        buffer.asDoubleBuffer().put(values, 0, length);
+        buffer.position(buffer.position() + length * Double.BYTES);
+    }
+
+    static void getDoubles(ByteBuffer buffer, double[] values, int length) {
+        buffer.asDoubleBuffer().get(values, 0, length);
+        buffer.position(buffer.position() + length * Double.BYTES);
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes checkpoints on a background thread. The loop thread only copies the state into one
+ * of two reusable buffers; the file write, fsync and the atomic rename over the previous
+ * checkpoint happen on the writer thread. If the previous checkpoint is still being written
+ * when the next one is due, the new one is skipped instead of stalling the loop.
+ */
+public class CheckpointWriter {
+    private final Path path;
+    private final Path temporary;
+    private final ExecutorService writer;
+    private final ByteBuffer[] buffers = new ByteBuffer[2];
+    private int current;
+    private Future<?> pending;
+    private int written;
+    private int skipped;
+
+    public CheckpointWriter(Path path) {
+        this.path = path;
+        this.temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Returns false if the checkpoint was skipped because the previous one is still being written
+    public boolean save(Checkpoint checkpoint) {
+        if (this.pending != null) {
+            if (!this.pending.isDone()) {
+                this.skipped++;
+                return false;
+            }
+            this.await();
+        }
+
+        int size = checkpoint.encodedSize();
+        ByteBuffer buffer = this.buffers[this.current];
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocateDirect(Math.max(size, size + size / 4)).order(ByteOrder.LITTLE_ENDIAN);
+            this.buffers[this.current] = buffer;
+        }
+        buffer.clear();
+        checkpoint.writeTo(buffer);
+        buffer.flip();
+
+        ByteBuffer filled = buffer;
+        this.pending = this.writer.submit(() -> this.write(filled));
+        this.current ^= 1;
+        return true;
+    }
+
+    public int getWritten() {
+        return this.written;
+    }
+
+    public int getSkipped() {
+        return this.skipped;
+    }
+
+    // Waits for the last checkpoint to reach the disk
+    public void close() {
+        try {
+            if (this.pending != null) {
+                this.await();
+            }
+        }
+        finally {
+            this.writer.shutdown();
+        }
+    }
+
+    private void await() {
+        try {
+            this.pending.get();
+            this.written++;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while writing a checkpoint", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException("Writing checkpoint " + this.path + " failed", (IOException) e.getCause());
+            }
+            throw new IllegalStateException("Writing checkpoint " + this.path + " failed", e.getCause());
+        }
+        finally {
+            this.pending = null;
+        }
+    }
+
+    private Void write(ByteBuffer buffer) throws IOException {
+        try (FileChannel channel = FileChannel.open(this.temporary,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        // Readers never see a half-written checkpoint
+        Files.move(this.temporary, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return null;
+    }
+}
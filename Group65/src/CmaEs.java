@@ -0,0 +1,352 @@
+import java.util.Arrays;
+
+/**
+ * (mu/mu_w, lambda)-CMA-ES with cumulative step-size adaptation and rank-one plus rank-mu
+ * covariance updates, following Hansen's "The CMA Evolution Strategy: A Tutorial". Maximizes
+ * like the rest of the engine. Candidates are repaired into [-5, 5] before they are evaluated,
+ * and the repaired points drive the update.
+ *
+ * All work buffers are allocated in the constructor. The eigendecomposition of C (cyclic
+ * Jacobi, O(n^3)) is only redone once the covariance has moved enough, i.e. every
+ * lambda / ((c1 + cmu) * n * 10) evaluations, so its cost is amortized to O(n^2) per sample.
+ */
+public class CmaEs {
+    private final int n;
+    private final int lambda;
+    private final int mu;
+    private final double[] weights;
+    private final double mueff;
+    private final double cc;
+    private final double cs;
+    private final double c1;
+    private final double cmu;
+    private final double damps;
+    private final double chiN;
+    private final RandomStream random;
+
+    private double sigma;
+    private final double[] mean;
+    private final double[] oldMean;
+    private final double[] pc;
+    private final double[] ps;
+    // Covariance C = B diag(D^2) B^T, all n x n matrices row-major
+    private final double[] covariance;
+    private final double[] basis;
+    private final double[] scales;
+    private final double[] eigenWork;
+    private int eigenEvaluations;
+
+    // One row per candidate, the layout BatchEvaluator expects
+    private final double[] candidates;
+    private final double[] fitness;
+    private final int[] order;
+    private final int[] orderBuffer;
+    private final double[] vector;
+    private final double[] step;
+
+    private int generation;
+    private int evaluations;
+
+    public CmaEs(int dimensions, int lambda, double sigma, RandomStream random) {
+        this.n = dimensions;
+        this.lambda = lambda > 0 ? lambda : 4 + (int) (3 * Math.log(dimensions));
+        this.mu = this.lambda / 2;
+        this.sigma = sigma;
+        this.random = random;
+
+        this.weights = new double[this.mu];
+        double sum = 0;
+        for (int i = 0; i < this.mu; i++) {
+            this.weights[i] = Math.log(this.mu + 0.5) - Math.log(i + 1);
+            sum += this.weights[i];
+        }
+        double sumOfSquares = 0;
+        for (int i = 0; i < this.mu; i++) {
+            this.weights[i] /= sum;
+            sumOfSquares += this.weights[i] * this.weights[i];
+        }
+        this.mueff = 1 / sumOfSquares;
+
+        this.cc = (4 + this.mueff / this.n) / (this.n + 4 + 2 * this.mueff / this.n);
+        this.cs = (this.mueff + 2) / (this.n + this.mueff + 5);
+        this.c1 = 2 / ((this.n + 1.3) * (this.n + 1.3) + this.mueff);
+        this.cmu = Math.min(1 - this.c1, 2 * (this.mueff - 2 + 1 / this.mueff) / ((this.n + 2) * (this.n + 2) + this.mueff));
+        this.damps = 1 + 2 * Math.max(0, Math.sqrt((this.mueff - 1) / (this.n + 1)) - 1) + this.cs;
+        this.chiN = Math.sqrt(this.n) * (1 - 1.0 / (4 * this.n) + 1.0 / (21.0 * this.n * this.n));
+
+        this.mean = new double[this.n];
+        this.oldMean = new double[this.n];
+        this.pc = new double[this.n];
+        this.ps = new double[this.n];
+        this.covariance = new double[this.n * this.n];
+        this.basis = new double[this.n * this.n];
+        this.scales = new double[this.n];
+        this.eigenWork = new double[this.n * this.n];
+        this.candidates = new double[this.lambda * this.n];
+        this.fitness = new double[this.lambda];
+        this.order = new int[this.lambda];
+        this.orderBuffer = new int[this.lambda];
+        this.vector = new double[this.n];
+        this.step = new double[this.n];
+
+        for (int i = 0; i < this.n; i++) {
+            this.mean[i] = this.random.nextDouble() * 10 - 5;
+            this.covariance[i * this.n + i] = 1;
+            this.basis[i * this.n + i] = 1;
+            this.scales[i] = 1;
+        }
+    }
+
+    // Runs until the budget is spent or an early stop triggers, the last generation only samples
+    // what is left of the budget. Traces and prints progress the same way Evolution.run does,
+    // so parameter_tuning.ps1 can read both engines.
+    static RunResult run(EvolutionConfig config, BatchEvaluator evaluator, EvaluationBudget budget, RandomStream random) {
+        CmaEs strategy = new CmaEs(config.dimensions, config.cmaLambda, config.cmaSigma, random);
+        TraceSink trace = config.printProgress ? AsyncTraceSink.open(config) : TraceSink.NULL;
+        double maxFitness = Double.NEGATIVE_INFINITY;
+        int maxFitnessCycle = 0;
+        int cycles = 0;
+
+        try {
+            for (int i = 0; i < budget.getLimit() && budget.getRemaining() > 0 && !budget.shouldStop(); i++) {
+                cycles = i;
+                int rows = Math.min(strategy.lambda, budget.getRemaining());
+                strategy.sample();
+                try {
+                    evaluator.evaluate(strategy.candidates, rows, strategy.n, strategy.fitness);
+                }
+                catch (EvaluationBudget.ExhaustedException e) {
+                    break;
+                }
+                double currentHighestFitness;
+                if (rows == strategy.lambda) {
+                    currentHighestFitness = strategy.tell();
+                }
+                else {
+                    // A partial generation cannot update the distribution, it only counts as samples
+                    currentHighestFitness = Double.NEGATIVE_INFINITY;
+                    for (int k = 0; k < rows; k++) {
+                        currentHighestFitness = Math.max(currentHighestFitness, strategy.fitness[k]);
+                    }
+                }
+                if (currentHighestFitness > maxFitness) {
+                    maxFitness = currentHighestFitness;
+                    maxFitnessCycle = i;
+                }
+                trace.record(i, budget.getUsed(), maxFitness, currentHighestFitness);
+            }
+        }
+        finally {
+            trace.close();
+        }
+
+        if (config.printProgress) {
+            System.out.println(maxFitnessCycle);
+        }
+        return new RunResult(maxFitness, maxFitnessCycle, cycles + 1, budget.getUsed());
+    }
+
+    public int getLambda() {
+        return this.lambda;
+    }
+
+    // Candidate rows of the current generation, valid after sample
+    public double[] getCandidates() {
+        return this.candidates;
+    }
+
+    // Fitness column to be filled by the evaluator before tell
+    public double[] getFitness() {
+        return this.fitness;
+    }
+
+    public double getSigma() {
+        return this.sigma;
+    }
+
+    // x_k = m + sigma * B D z_k with z_k ~ N(0, I), repaired into the search domain
+    public void sample() {
+        this.updateEigensystem();
+        for (int k = 0; k < this.lambda; k++) {
+            for (int i = 0; i < this.n; i++) {
+                this.vector[i] = this.scales[i] * this.random.nextGaussian();
+            }
+            int offset = k * this.n;
+            for (int i = 0; i < this.n; i++) {
+                double sum = 0;
+                int row = i * this.n;
+                for (int j = 0; j < this.n; j++) {
+                    sum += this.basis[row + j] * this.vector[j];
+                }
+                double gene = this.mean[i] + this.sigma * sum;
+                this.candidates[offset + i] = Math.min(5, Math.max(-5, gene));
+            }
+        }
+    }
+
+    // Updates the distribution from the evaluated candidates, returns the best fitness among them
+    public double tell() {
+        this.generation++;
+        this.evaluations += this.lambda;
+        for (int k = 0; k < this.lambda; k++) {
+            if (Double.isNaN(this.fitness[k])) {
+                this.fitness[k] = -42;
+            }
+            this.order[k] = k;
+        }
+        // Ascending, so the k-th best candidate is order[lambda - 1 - k]
+        ArrayHelper.sortIndicesByKey(this.order, this.lambda, this.fitness, this.orderBuffer);
+
+        // Recombination of the mu best into the new mean
+        System.arraycopy(this.mean, 0, this.oldMean, 0, this.n);
+        Arrays.fill(this.mean, 0);
+        for (int k = 0; k < this.mu; k++) {
+            int offset = this.order[this.lambda - 1 - k] * this.n;
+            for (int i = 0; i < this.n; i++) {
+                this.mean[i] += this.weights[k] * this.candidates[offset + i];
+            }
+        }
+        for (int i = 0; i < this.n; i++) {
+            this.step[i] = (this.mean[i] - this.oldMean[i]) / this.sigma;
+        }
+
+        // Conjugate evolution path: ps uses C^(-1/2) step = B D^-1 B^T step
+        this.multiplyInverseSquareRoot(this.step, this.vector);
+        double psFactor = Math.sqrt(this.cs * (2 - this.cs) * this.mueff);
+        double psNorm = 0;
+        for (int i = 0; i < this.n; i++) {
+            this.ps[i] = (1 - this.cs) * this.ps[i] + psFactor * this.vector[i];
+            psNorm += this.ps[i] * this.ps[i];
+        }
+        psNorm = Math.sqrt(psNorm);
+        boolean hsig = psNorm / Math.sqrt(1 - Math.pow(1 - this.cs, 2.0 * this.generation)) / this.chiN < 1.4 + 2.0 / (this.n + 1);
+
+        double pcFactor = Math.sqrt(this.cc * (2 - this.cc) * this.mueff);
+        for (int i = 0; i < this.n; i++) {
+            this.pc[i] = (1 - this.cc) * this.pc[i] + (hsig ? pcFactor * this.step[i] : 0);
+        }
+
+        // Rank-one and rank-mu update of the upper triangle, mirrored afterwards
+        double keep = 1 - this.c1 - this.cmu + (hsig ? 0 : this.c1 * this.cc * (2 - this.cc));
+        for (int i = 0; i < this.n; i++) {
+            int row = i * this.n;
+            for (int j = i; j < this.n; j++) {
+                this.covariance[row + j] = keep * this.covariance[row + j] + this.c1 * this.pc[i] * this.pc[j];
+            }
+        }
+        for (int k = 0; k < this.mu; k++) {
+            int offset = this.order[this.lambda - 1 - k] * this.n;
+            for (int i = 0; i < this.n; i++) {
+                this.vector[i] = (this.candidates[offset + i] - this.oldMean[i]) / this.sigma;
+            }
+            double weight = this.cmu * this.weights[k];
+            for (int i = 0; i < this.n; i++) {
+                int row = i * this.n;
+                double scaled = weight * this.vector[i];
+                for (int j = i; j < this.n; j++) {
+                    this.covariance[row + j] += scaled * this.vector[j];
+                }
+            }
+        }
+        for (int i = 0; i < this.n; i++) {
+            for (int j = 0; j < i; j++) {
+                this.covariance[i * this.n + j] = this.covariance[j * this.n + i];
+            }
+        }
+
+        this.sigma *= Math.exp((this.cs / this.damps) * (psNorm / this.chiN - 1));
+        return this.fitness[this.order[this.lambda - 1]];
+    }
+
+    // target = B D^-1 B^T source
+    private void multiplyInverseSquareRoot(double[] source, double[] target) {
+        for (int j = 0; j < this.n; j++) {
+            double sum = 0;
+            for (int i = 0; i < this.n; i++) {
+                sum += this.basis[i * this.n + j] * source[i];
+            }
+            this.eigenWork[j] = sum / this.scales[j];
+        }
+        for (int i = 0; i < this.n; i++) {
+            double sum = 0;
+            int row = i * this.n;
+            for (int j = 0; j < this.n; j++) {
+                sum += this.basis[row + j] * this.eigenWork[j];
+            }
+            target[i] = sum;
+        }
+    }
+
+    // Lazy decomposition C = B diag(D^2) B^T
+    private void updateEigensystem() {
+        if (this.evaluations - this.eigenEvaluations <= this.lambda / ((this.c1 + this.cmu) * this.n * 10)) {
+            return;
+        }
+        this.eigenEvaluations = this.evaluations;
+
+        System.arraycopy(this.covariance, 0, this.eigenWork, 0, this.covariance.length);
+        jacobi(this.eigenWork, this.basis, this.n);
+        for (int i = 0; i < this.n; i++) {
+            // Rounding can push tiny eigenvalues below zero
+            this.scales[i] = Math.sqrt(Math.max(this.eigenWork[i * this.n + i], 1e-20));
+        }
+    }
+
+    // Cyclic Jacobi eigenvalue algorithm for a symmetric matrix. On return the diagonal of
+    // matrix holds the eigenvalues and the columns of vectors the eigenvectors.
+    static void jacobi(double[] matrix, double[] vectors, int n) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                vectors[i * n + j] = i == j ? 1 : 0;
+            }
+        }
+
+        for (int sweep = 0; sweep < 50; sweep++) {
+            double offDiagonal = 0;
+            double diagonal = 0;
+            for (int p = 0; p < n; p++) {
+                diagonal += matrix[p * n + p] * matrix[p * n + p];
+                for (int q = p + 1; q < n; q++) {
+                    offDiagonal += matrix[p * n + q] * matrix[p * n + q];
+                }
+            }
+            if (offDiagonal <= 1e-30 * diagonal) {
+                return;
+            }
+
+            for (int p = 0; p < n - 1; p++) {
+                for (int q = p + 1; q < n; q++) {
+                    double apq = matrix[p * n + q];
+                    if (apq == 0) {
+                        continue;
+                    }
+                    double theta = (matrix[q * n + q] - matrix[p * n + p]) / (2 * apq);
+                    // Smaller root of t^2 + 2 t theta - 1 = 0, 45 degrees for theta = 0
+                    double t = theta == 0 ? 1 : Math.signum(theta) / (Math.abs(theta) + Math.sqrt(theta * theta + 1));
+                    double c = 1 / Math.sqrt(t * t + 1);
+                    double s = t * c;
+
+                    // A' = J^T A J, rows and columns p and q
+                    for (int k = 0; k < n; k++) {
+                        double akp = matrix[k * n + p];
+                        double akq = matrix[k * n + q];
+                        matrix[k * n + p] = c * akp - s * akq;
+                        matrix[k * n + q] = s * akp + c * akq;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double apk = matrix[p * n + k];
+                        double aqk = matrix[q * n + k];
+                        matrix[p * n + k] = c * apk - s * aqk;
+                        matrix[q * n + k] = s * apk + c * aqk;
+                    }
+                    for (int k = 0; k < n; k++) {
+                        double vkp = vectors[k * n + p];
+                        double vkq = vectors[k * n + q];
+                        vectors[k * n + p] = c * vkp - s * vkq;
+                        vectors[k * n + q] = s * vkp + c * vkq;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+/**
+ * Arguments of the command line tools (BbobRun, ExperimentRunner, ParameterTuner, ...), which
+ * all take -name=value options.
+ */
+public final class CommandLine {
+    private CommandLine() {
+    }
+
+    // {name, value} of one -name=value argument, the leading dash is optional
+    public static String[] option(String arg) {
+        String[] pair = arg.replaceFirst("^-", "").split("=", 2);
+        if (pair.length != 2) {
+            throw new IllegalArgumentException("Expected -name=value, got " + arg);
+        }
+        return pair;
+    }
+
+    // Comma separated integers, like -dimensions=2,5,10
+    public static int[] intList(String value) {
+        String[] parts = value.split(",");
+        int[] result = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            result[i] = Integer.parseInt(parts[i].trim());
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 public class Constants{
 
+    // Genome length when the evaluation does not publish a Dimension property (-Ddimensions)
     public final static int DIMENSIONS = 10;
 
     public final static int POPULATION_SIZE = 34;
@@ -20,4 +21,66 @@ public class Constants{
     public final static double K_FOR_EXP_RANKING = 0.5;
 
     public final static double K_FOR_LIN_RANKING = 2;
+
+    // Workers used by ParallelEvaluator, 1 evaluates on the calling thread
+    public final static int EVALUATION_THREADS = 1;
+
+    // Genomes remembered by CachingEvaluator, 0 disables the cache
+    public final static int FITNESS_CACHE_SIZE = 0;
+
+    // Generations in a row the fitness cache may answer completely before a run leaves the rest of its budget unspent
+    public final static int MAX_FREE_GENERATIONS = 10;
+
+    // Populations at least this large are ranked with a fork/join merge sort
+    public final static int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    // Optimizer used by Evolution.evolve, islands always run the GENETIC engine
+    public final static EngineType ENGINE = EngineType.GENETIC;
+
+    // CMA-ES offspring per generation (0 for the default 4 + 3 ln(dimensions)) and initial step size
+    public final static int CMA_LAMBDA = 0;
+    public final static double CMA_SIGMA = 2.0;
+
+    // Surrogate pre-screening: offspring generated per offspring evaluated (1 disables it),
+    // neighbours averaged by the kNN model and evaluations kept in its archive
+    public final static int SURROGATE_FACTOR = 1;
+    public final static int SURROGATE_NEIGHBOURS = 5;
+    public final static int SURROGATE_ARCHIVE_SIZE = 1000;
+
+    // Offspring bred and evaluated per step of the STEADY_STATE engine
+    public final static int STEADY_STATE_OFFSPRING = 2;
+
+    // Offspring evaluated asynchronously at a time by the STEADY_STATE engine, 0 evaluates them in batches
+    public final static int EVALUATION_QUEUE = 0;
+
+    // Early stop once the best fitness reaches this value (NaN for never, -DtargetFitness)
+    public final static double TARGET_FITNESS = Double.NaN;
+
+    // Early stop after this many evaluations without a better fitness (0 for never, -DplateauEvaluations)
+    public final static int PLATEAU_EVALUATIONS = 0;
+
+    // Cycles between two checkpoints when -DcheckpointFile is set (single population GENETIC runs only)
+    public final static int CHECKPOINT_INTERVAL = 100;
+
+    // Island model, 1 island runs the plain single population
+    public final static int ISLANDS = 1;
+
+    // Cycles between two migrations
+    public final static int MIGRATION_INTERVAL = 10;
+
+    // Fittest individuals every island sends per migration
+    public final static int MIGRATION_SIZE = 2;
+
+    public final static MigrationTopology MIGRATION_TOPOLOGY = MigrationTopology.RING;
+
+    // Time the phases of every generation (-Dprofile=true)
+    public final static boolean PROFILE = false;
+
+    // Vector API kernels for variation and mutation statistics, see VariationKernels.load
+    public final static boolean VECTOR_KERNELS = false;
+
+    // Convergence trace: format, destination file (null for stdout) and every how many cycles a record is kept
+    public final static TraceFormat TRACE_FORMAT = TraceFormat.TEXT;
+    public final static String TRACE_FILE = null;
+    public final static int TRACE_SAMPLING = 1;
 }
\ No newline at end of file
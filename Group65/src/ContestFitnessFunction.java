@@ -0,0 +1,22 @@
+import org.vu.contest.ContestEvaluation;
+
+/**
+ * Thread-safe wrapper around a ContestEvaluation. The contest keeps one evaluation budget per
+ * run and gives no guarantees about concurrent calls, so all workers share this instance and
+ * calls into the contest are serialized.
+ */
+public class ContestFitnessFunction implements FitnessFunction, FitnessFunctionFactory {
+    private final ContestEvaluation evaluation;
+
+    public ContestFitnessFunction(ContestEvaluation evaluation) {
+        this.evaluation = evaluation;
+    }
+
+    public synchronized double evaluate(double[] genome) {
+        return (double) this.evaluation.evaluate(genome);
+    }
+
+    public FitnessFunction create() {
+        return this;
+    }
+}
@@ -0,0 +1,8 @@
+public enum EngineType {
+    // Selection, recombination and self-adaptive mutation on a Population (Evolution.run)
+    GENETIC,
+    // Covariance matrix adaptation evolution strategy (CmaEs)
+    CMA_ES,
+    // A few offspring per step replace the worst individuals (SteadyStateEvolution)
+    STEADY_STATE
+}
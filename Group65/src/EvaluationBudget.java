@@ -0,0 +1,161 @@
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Evaluation budget shared by everything that evaluates within one run, and the single count
+ * of evaluations made. Evaluations are reserved before they are made, so concurrent callers can
+ * never spend more than the limit. The fitness values that come back are recorded, which lets
+ * every engine stop as soon as the target fitness is reached or the best fitness has not
+ * improved for plateauEvaluations evaluations (see shouldStop), and gives the evaluations and
+ * the time it took to reach the target.
+ */
+public class EvaluationBudget {
+    private final int limit;
+    private final AtomicInteger used = new AtomicInteger();
+    // NaN and 0 disable the early stops
+    private final double targetFitness;
+    private final int plateauEvaluations;
+    private final long start;
+
+    // Written under the lock of record, read by the volatile flag and the getters
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+    private int lastImprovement;
+    private int evaluationsToTarget = -1;
+    private long nanosToTarget = -1;
+    private volatile boolean targetReached;
+
+    public EvaluationBudget(int limit) {
+        this(limit, 0, Double.NaN, 0);
+    }
+
+    public EvaluationBudget(int limit, int used, double targetFitness, int plateauEvaluations) {
+        this(limit, used, targetFitness, plateauEvaluations, 0);
+    }
+
+    // elapsedNanos is the time the run already took before this budget was created
+    private EvaluationBudget(int limit, int used, double targetFitness, int plateauEvaluations, long elapsedNanos) {
+        this.limit = limit;
+        this.used.set(used);
+        this.lastImprovement = used;
+        this.targetFitness = targetFitness;
+        this.plateauEvaluations = plateauEvaluations;
+        this.start = System.nanoTime() - elapsedNanos;
+    }
+
+    // Reserves evaluations if all of them are still available, otherwise reserves nothing
+    public boolean tryReserve(int evaluations) {
+        return this.reserve(evaluations) >= 0;
+    }
+
+    // Same as tryReserve, returns the number of evaluations made before these, or -1
+    public int reserve(int evaluations) {
+        while (true) {
+            int current = this.used.get();
+            if (current + evaluations > this.limit) {
+                return -1;
+            }
+            if (this.used.compareAndSet(current, current + evaluations)) {
+                return current;
+            }
+        }
+    }
+
+    // Fitness of the rows evaluations first + 1 .. first + rows, first as returned by reserve
+    public synchronized void record(double[] fitness, int offset, int rows, int first) {
+        for (int i = 0; i < rows; i++) {
+            this.record(fitness[offset + i], first + i + 1);
+        }
+    }
+
+    // Fitness of the evaluation-th evaluation of the run
+    public synchronized void record(double fitness, int evaluation) {
+        if (fitness > this.bestFitness) {
+            this.bestFitness = fitness;
+            this.lastImprovement = Math.max(this.lastImprovement, evaluation);
+        }
+        if (!this.targetReached && fitness >= this.targetFitness) {
+            this.evaluationsToTarget = evaluation;
+            this.nanosToTarget = System.nanoTime() - this.start;
+            this.targetReached = true;
+        }
+    }
+
+    // True once the target is reached or the best fitness has stopped improving
+    public boolean shouldStop() {
+        return this.targetReached || this.isPlateau();
+    }
+
+    public boolean isTargetReached() {
+        return this.targetReached;
+    }
+
+    public synchronized boolean isPlateau() {
+        return this.plateauEvaluations > 0 && this.used.get() - this.lastImprovement >= this.plateauEvaluations;
+    }
+
+    // -1 if the target has not been reached
+    public synchronized int getEvaluationsToTarget() {
+        return this.evaluationsToTarget;
+    }
+
+    // Time from the creation of the budget to the evaluation that reached the target, -1 if not reached
+    public synchronized long getNanosToTarget() {
+        return this.nanosToTarget;
+    }
+
+    public int getLimit() {
+        return this.limit;
+    }
+
+    public int getUsed() {
+        return this.used.get();
+    }
+
+    public int getRemaining() {
+        return this.limit - this.used.get();
+    }
+
+    // Bytes written by writeTo
+    public static int encodedSize() {
+        return 4 * Integer.BYTES + 2 * Long.BYTES + Double.BYTES;
+    }
+
+    // Counters and early-stop state for a checkpoint, the elapsed time included, so a resumed
+    // run stops and reports the time to target like the run that wrote it
+    public synchronized void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.limit);
+        buffer.putInt(this.used.get());
+        buffer.putDouble(this.bestFitness);
+        buffer.putInt(this.lastImprovement);
+        buffer.putInt(this.evaluationsToTarget);
+        buffer.putLong(this.nanosToTarget);
+        buffer.putLong(System.nanoTime() - this.start);
+    }
+
+    // Target and plateau are settings of the resumed run, not part of the checkpoint
+    public static EvaluationBudget readFrom(ByteBuffer buffer, double targetFitness, int plateauEvaluations) {
+        int limit = buffer.getInt();
+        int used = buffer.getInt();
+        double bestFitness = buffer.getDouble();
+        int lastImprovement = buffer.getInt();
+        int evaluationsToTarget = buffer.getInt();
+        long nanosToTarget = buffer.getLong();
+        long elapsedNanos = buffer.getLong();
+
+        EvaluationBudget budget = new EvaluationBudget(limit, used, targetFitness, plateauEvaluations, elapsedNanos);
+        budget.bestFitness = bestFitness;
+        budget.lastImprovement = lastImprovement;
+        budget.evaluationsToTarget = evaluationsToTarget;
+        budget.nanosToTarget = nanosToTarget;
+        budget.targetReached = evaluationsToTarget >= 0;
+        return budget;
+    }
+
+    public static class ExhaustedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ExhaustedException(int requested, int remaining) {
+            super("Requested " + requested + " evaluations, only " + remaining + " left");
+        }
+    }
+}
@@ -0,0 +1,107 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * One end of the connection between ProcessPoolEvaluator and an EvaluationWorker. The protocol
+ * is binary and big-endian, one message per batch of genomes:
+ *
+ *   worker hello:  int MAGIC, int VERSION, int worker, int dimensions, double ftarget
+ *   request:       int EVALUATE, int rows, int dimensions, rows * dimensions doubles
+ *                  int CLOSE
+ *   reply:         int OK, int rows, rows doubles
+ *                  int FAILED, UTF message
+ *
+ * Doubles go through a reusable byte buffer in bulk, so a batch costs one copy per direction.
+ */
+public class EvaluationChannel {
+    public static final int MAGIC = 0x45564c57;
+    public static final int VERSION = 1;
+
+    public static final int EVALUATE = 1;
+    public static final int CLOSE = 2;
+    public static final int OK = 0;
+    public static final int FAILED = 1;
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private byte[] bytes = new byte[0];
+
+    public EvaluationChannel(Socket socket) throws IOException {
+        this.socket = socket;
+        this.socket.setTcpNoDelay(true);
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 16));
+        this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+    }
+
+    public int readInt() throws IOException {
+        return this.in.readInt();
+    }
+
+    public double readDouble() throws IOException {
+        return this.in.readDouble();
+    }
+
+    public String readUTF() throws IOException {
+        return this.in.readUTF();
+    }
+
+    public void writeInt(int value) throws IOException {
+        this.out.writeInt(value);
+    }
+
+    public void writeDouble(double value) throws IOException {
+        this.out.writeDouble(value);
+    }
+
+    public void writeUTF(String value) throws IOException {
+        this.out.writeUTF(value);
+    }
+
+    public void writeDoubles(double[] values, int offset, int count) throws IOException {
+        ByteBuffer buffer = this.wrap(count);
+        buffer.asDoubleBuffer().put(values, offset, count);
+        this.out.write(this.bytes, 0, count * Double.BYTES);
+    }
+
+    public void readDoubles(double[] values, int offset, int count) throws IOException {
+        ByteBuffer buffer = this.wrap(count);
+        this.in.readFully(this.bytes, 0, count * Double.BYTES);
+        buffer.asDoubleBuffer().get(values, offset, count);
+    }
+
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    // Reads the opening message of a worker, returns its index
+    public int readHello() throws IOException {
+        int magic = this.in.readInt();
+        int version = this.in.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Not an evaluation worker of protocol version " + VERSION);
+        }
+        return this.in.readInt();
+    }
+
+    public void close() {
+        try {
+            this.socket.close();
+        }
+        catch (IOException e) {
+            // Nothing left to clean up
+        }
+    }
+
+    private ByteBuffer wrap(int doubles) {
+        if (this.bytes.length < doubles * Double.BYTES) {
+            this.bytes = new byte[doubles * Double.BYTES];
+        }
+        return ByteBuffer.wrap(this.bytes);
+    }
+}
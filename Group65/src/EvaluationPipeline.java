@@ -0,0 +1,137 @@
+import java.util.ArrayDeque;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Asynchronous fitness evaluation. The caller fills jobs with genomes and submits them, a fixed
+ * set of workers evaluates them, and the caller takes them back in the order they finish, so a
+ * slow genome holds up nobody but itself. There are only capacity jobs: acquire returns null
+ * while all of them are in flight, which keeps a fast producer from running ahead of the
+ * workers. Jobs and their genomes are recycled, nothing is allocated per evaluation.
+ *
+ * acquire, submit, take and release must be called from one thread.
+ */
+public class EvaluationPipeline {
+    public static final class Job {
+        public final double[] genome;
+        private double fitness;
+        private RuntimeException failure;
+
+        Job(int dimensions) {
+            this.genome = new double[dimensions];
+        }
+
+        public double getFitness() {
+            return this.fitness;
+        }
+    }
+
+    private final BlockingQueue<Job> pending;
+    private final BlockingQueue<Job> finished;
+    // Jobs owned by the caller
+    private final ArrayDeque<Job> free;
+    private final Thread[] workers;
+    private final int capacity;
+    private int inFlight;
+
+    public EvaluationPipeline(FitnessFunctionFactory factory, int workers, int capacity, int dimensions) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one evaluation worker is required, got " + workers);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("The evaluation queue needs room for at least one genome, got " + capacity);
+        }
+
+        this.capacity = capacity;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.finished = new ArrayBlockingQueue<>(capacity);
+        this.free = new ArrayDeque<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.free.push(new Job(dimensions));
+        }
+
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            FitnessFunction function = factory.create();
+            this.workers[i] = new Thread(() -> this.work(function), "fitness-pipeline");
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    public int getInFlight() {
+        return this.inFlight;
+    }
+
+    // A job to fill and submit, null while all jobs are in flight
+    public Job acquire() {
+        return this.free.poll();
+    }
+
+    // Hands back a job that was acquired but not submitted, or one that was taken
+    public void release(Job job) {
+        this.free.push(job);
+    }
+
+    public void submit(Job job) {
+        // Never blocks, there are no more jobs than queue slots
+        this.pending.add(job);
+        this.inFlight++;
+    }
+
+    // Next evaluated job, waits until one finishes. Null if nothing is in flight.
+    public Job take() {
+        if (this.inFlight == 0) {
+            return null;
+        }
+
+        Job job;
+        try {
+            job = this.finished.take();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for fitness evaluation", e);
+        }
+        this.inFlight--;
+
+        if (job.failure != null) {
+            RuntimeException failure = job.failure;
+            job.failure = null;
+            this.release(job);
+            throw new IllegalStateException("Fitness evaluation failed", failure);
+        }
+        return job;
+    }
+
+    // Stops the workers, evaluations that are still running are abandoned
+    public void shutdown() {
+        for (Thread worker : this.workers) {
+            worker.interrupt();
+        }
+    }
+
+    private void work(FitnessFunction function) {
+        while (true) {
+            Job job;
+            try {
+                job = this.pending.take();
+            }
+            catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                job.fitness = function.evaluate(job.genome);
+            }
+            catch (RuntimeException e) {
+                job.failure = e;
+            }
+            this.finished.add(job);
+        }
+    }
+}
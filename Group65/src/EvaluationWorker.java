@@ -0,0 +1,120 @@
+import javabbob.JNIfgeneric;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Worker process of ProcessPoolEvaluator. Loads its own copy of the cjavabbob library, whose
+ * global state in initBBOB/exitBBOB rules out several evaluators in one JVM, connects back to
+ * the coordinator and evaluates batches until it is told to close or the connection drops.
+ *
+ * Started by ProcessPoolEvaluator as
+ * java -Djava.library.path=... EvaluationWorker -connect=127.0.0.1:port -worker=0 -function=2 -instance=1 -dimensions=10 -data=bbob-data
+ *
+ * Every worker writes the BBOB data files to its own directory, data/worker-i.
+ */
+public class EvaluationWorker {
+    public static void main(String[] args) throws IOException {
+        String host = "127.0.0.1";
+        int port = -1;
+        int worker = 0;
+        int function = 1;
+        int instance = 1;
+        int dimensions = Constants.DIMENSIONS;
+        String data = "bbob-data";
+
+        for (String arg : args) {
+            String[] pair = CommandLine.option(arg);
+            switch (pair[0]) {
+                case "connect":
+                    int colon = pair[1].lastIndexOf(':');
+                    host = pair[1].substring(0, colon);
+                    port = Integer.parseInt(pair[1].substring(colon + 1));
+                    break;
+                case "worker": worker = Integer.parseInt(pair[1]); break;
+                case "function": function = Integer.parseInt(pair[1]); break;
+                case "instance": instance = Integer.parseInt(pair[1]); break;
+                case "dimensions": dimensions = Integer.parseInt(pair[1]); break;
+                case "data": data = pair[1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+        if (port < 0) {
+            throw new IllegalArgumentException("-connect=host:port is required");
+        }
+
+        String directory = new File(data, "worker-" + worker).getPath();
+        JNIfgeneric.makeBBOBdirs(directory, false);
+        JNIfgeneric fgeneric = new JNIfgeneric();
+        JNIfgeneric.Params params = new JNIfgeneric.Params();
+        params.algName = "Group65";
+        fgeneric.initBBOB(function, instance, dimensions, directory, params);
+        try (Socket socket = new Socket(host, port)) {
+            serve(new EvaluationChannel(socket), new BbobBatchEvaluator(fgeneric), worker, dimensions, fgeneric.getFtarget());
+        }
+        finally {
+            fgeneric.exitBBOB();
+        }
+    }
+
+    // Answers requests on channel until CLOSE or end of stream, works with any evaluator
+    static void serve(EvaluationChannel channel, BatchEvaluator evaluator, int worker, int dimensions, double ftarget)
+        throws IOException {
+
+        channel.writeInt(EvaluationChannel.MAGIC);
+        channel.writeInt(EvaluationChannel.VERSION);
+        channel.writeInt(worker);
+        channel.writeInt(dimensions);
+        channel.writeDouble(ftarget);
+        channel.flush();
+
+        double[] genomes = new double[0];
+        double[] fitness = new double[0];
+        while (true) {
+            int request;
+            try {
+                request = channel.readInt();
+            }
+            catch (EOFException e) {
+                // Coordinator went away
+                return;
+            }
+            if (request == EvaluationChannel.CLOSE) {
+                return;
+            }
+            if (request != EvaluationChannel.EVALUATE) {
+                throw new IOException("Unknown request " + request);
+            }
+
+            int rows = channel.readInt();
+            int requestDimensions = channel.readInt();
+            if (genomes.length < rows * requestDimensions) {
+                genomes = new double[rows * requestDimensions];
+            }
+            if (fitness.length < rows) {
+                fitness = new double[rows];
+            }
+            channel.readDoubles(genomes, 0, rows * requestDimensions);
+
+            if (requestDimensions != dimensions) {
+                channel.writeInt(EvaluationChannel.FAILED);
+                channel.writeUTF("Worker " + worker + " evaluates " + dimensions + " dimensions, got " + requestDimensions);
+            }
+            else {
+                try {
+                    evaluator.evaluate(genomes, rows, dimensions, fitness);
+                    channel.writeInt(EvaluationChannel.OK);
+                    channel.writeInt(rows);
+                    channel.writeDoubles(fitness, 0, rows);
+                }
+                catch (RuntimeException e) {
+                    channel.writeInt(EvaluationChannel.FAILED);
+                    channel.writeUTF(String.valueOf(e));
+                }
+            }
+            channel.flush();
+        }
+    }
+}
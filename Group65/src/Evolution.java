@@ -1,6 +1,7 @@
 import org.vu.contest.ContestEvaluation;
 
-import java.sql.SQLOutput;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * OPTIMIZATION FINDINGS:
@@ -8,114 +9,323 @@ import java.sql.SQLOutput;
  * Recombination takes most of the remaining time [20-30%]
  * Mutation is relatively easy [5-10%]
  * The rest is negligible
+ * Measure instead of guessing: -Dprofile=true prints per-phase times at the end of a run and
+ * records a GenerationEvent per generation in Flight Recorder, OperatorBenchmark times the
+ * operators in isolation.
  */
 
 public class Evolution {
-    public static int FITNESS_EVALUATIONS = 0;
 
-    public static ContestEvaluation eval;
     static void startEvolutionaryAlgorithm(ContestEvaluation evaluation, int eval_limit) {
-        eval= evaluation;
+        evolve(evaluation, eval_limit, EvolutionConfig.fromSystemProperties(), RandomStream.newStream());
+    }
 
-        int populationSize = Constants.POPULATION_SIZE;
-        int initialFittestSize = Constants.FITTEST_SIZE;
-        int initialRecombinationSize = Constants.RECOMBINATION_SIZE;
-        int initialMutationSize = Constants.MUTATION_SIZE;
-        RankingType rankingType = Constants.DEFAULT_RANKING_TYPE;
-        ParentSelectionType parentSelectionType = Constants.CURRENT_PARENT_SELECTION_TYPE;
+    // One complete run against a contest evaluation, on a single population or on islands.
+    // Holds no static state, so independent runs can execute concurrently.
+    static RunResult evolve(ContestEvaluation evaluation, int eval_limit, EvolutionConfig config, RandomStream random) {
+        config = config.forEvaluation(evaluation.getProperties());
+        ContestFitnessFunction contest = new ContestFitnessFunction(evaluation);
 
-        String populationSizeString = System.getProperty("populationSize");
-        if (populationSizeString != null && !populationSizeString.isEmpty()) {
-            populationSize = Integer.parseInt(populationSizeString);
+        if (config.islands > 1) {
+            if (config.resume && config.checkpointFile != null && Files.exists(Paths.get(config.checkpointFile))) {
+                throw new IllegalStateException("Checkpoint " + config.checkpointFile + " cannot be resumed on "
+                    + config.islands + " islands");
+            }
+            EvaluationBudget budget = new EvaluationBudget(eval_limit, 0, config.targetFitness, config.plateauEvaluations);
+            return IslandModel.run(config, contest, budget, random).withTarget(budget);
         }
 
-        String fittestSizeString = System.getProperty("fittestSize");
-        if (fittestSizeString != null && !fittestSizeString.isEmpty()) {
-            initialFittestSize = Integer.parseInt(fittestSizeString);
+        ParallelEvaluator contestEvaluator = new ParallelEvaluator(contest, config.evaluationThreads);
+        try {
+            return evolve(contestEvaluator, contest, eval_limit, config, random);
+        }
+        finally {
+            contestEvaluator.shutdown();
         }
+    }
+
+    // One run of a single population against any evaluator, e.g. a pool of worker processes.
+    // factory is only used by the asynchronous steady-state engine and may be null otherwise.
+    static RunResult evolve(
+        BatchEvaluator base,
+        FitnessFunctionFactory factory,
+        int eval_limit,
+        EvolutionConfig config,
+        RandomStream random) {
 
-        String recombinationSizeString = System.getProperty("recombinationSize");
-        if (recombinationSizeString != null && !recombinationSizeString.isEmpty()) {
-            initialRecombinationSize = Integer.parseInt(recombinationSizeString);
+        // -Dresume=true continues from the checkpoint file if there is one
+        Checkpoint resume = null;
+        if (config.resume && config.checkpointFile != null && Files.exists(Paths.get(config.checkpointFile))) {
+            resume = Checkpoint.read(Paths.get(config.checkpointFile), config, random);
+            resume.checkResumable(config, eval_limit, config.checkpointFile);
+        }
+
+        EvaluationBudget budget = resume != null
+            ? resume.budget
+            : new EvaluationBudget(eval_limit, 0, config.targetFitness, config.plateauEvaluations);
+        CachingEvaluator cache = createCache(config, base, budget);
+        BatchEvaluator evaluator = cache != null ? cache : new BudgetedEvaluator(base, budget);
+        RunResult result;
+        if (config.engine == EngineType.CMA_ES) {
+            result = CmaEs.run(config, evaluator, budget, random);
+        }
+        else if (config.engine == EngineType.STEADY_STATE && config.evaluationQueue > 0) {
+            if (factory == null) {
+                throw new IllegalArgumentException("Asynchronous evaluation needs a FitnessFunctionFactory");
+            }
+            // Offspring bypass the fitness cache, the pipeline workers call the fitness functions directly
+            result = SteadyStateEvolution.runAsync(config, evaluator, factory, budget, random);
+        }
+        else if (config.engine == EngineType.STEADY_STATE) {
+            result = SteadyStateEvolution.run(config, evaluator, budget, random);
+        }
+        else {
+            result = run(config, evaluator, budget, random, null, resume);
         }
 
-        String mutationSizeString = System.getProperty("mutationSize");
-        if (mutationSizeString != null && !mutationSizeString.isEmpty()) {
-            initialMutationSize = Integer.parseInt(mutationSizeString);
+        if (cache != null && config.printProgress) {
+            cache.printStatistics();
         }
+        return result.withTarget(budget);
+    }
 
-        String parentSelectionTypeString = System.getProperty("parentSelectionType");
-        if (parentSelectionTypeString != null && !parentSelectionTypeString.isEmpty()) {
-            parentSelectionType = ParentSelectionType.valueOf(parentSelectionTypeString);
+    // The cache sits above the budget, so cache hits cost no budget. Null when disabled.
+    static CachingEvaluator createCache(EvolutionConfig config, BatchEvaluator evaluator, EvaluationBudget budget) {
+        if (config.fitnessCacheSize <= 0) {
+            return null;
         }
+        return new CachingEvaluator(new BudgetedEvaluator(evaluator, budget), config.fitnessCacheSize);
+    }
+
+    static RunResult run(
+        EvolutionConfig config,
+        BatchEvaluator evaluator,
+        EvaluationBudget budget,
+        RandomStream random,
+        IslandModel.Island island) {
+
+        return run(config, evaluator, budget, random, island, null);
+    }
+
+    // Runs one population until the budget is spent or an early stop triggers. Traces the per-cycle progress if
+    // config.printProgress is set and it does not run as an island, islands migrate every
+    // config.migrationInterval cycles instead. Continues from resume if given, and saves a
+    // checkpoint every config.checkpointInterval cycles if config.checkpointFile is set.
+    static RunResult run(
+        EvolutionConfig config,
+        BatchEvaluator evaluator,
+        EvaluationBudget budget,
+        RandomStream random,
+        IslandModel.Island island,
+        Checkpoint resume) {
 
-        String rankingTypeString = System.getProperty("rankingType");
-        if (rankingTypeString != null && !rankingTypeString.isEmpty()) {
-            rankingType = RankingType.valueOf(rankingTypeString);
+        int populationSize = config.populationSize;
+        ParentSelectionType parentSelectionType = config.parentSelectionType;
+        RankingType rankingType = config.rankingType;
+        Population tribe = resume != null ? resume.population : new Population(parentSelectionType, populationSize, rankingType, random, config.dimensions);
+        tribe.setKernels(VariationKernels.load(config.vectorKernels));
+        // Every generation is written into the spare buffer, then the two are swapped
+        Population spare = new Population(tribe);
+        // Archive of every real evaluation, used to pre-screen oversampled offspring
+        SurrogateModel surrogate;
+        if (resume != null) {
+            surrogate = resume.surrogate;
+        }
+        else {
+            surrogate = config.surrogateFactor > 1
+                ? new SurrogateModel(tribe.getDimensions(), config.surrogateNeighbours, config.surrogateArchiveSize)
+                : null;
         }
 
-        Population tribe = new Population(parentSelectionType, populationSize, rankingType);
-        
-        int cycles = eval_limit / populationSize;
-        int last_cycles_without_mutation = cycles / 20;
-        int fittestSize = initialFittestSize;
-        int mutationSize = initialMutationSize;
-        int recombinationSize = initialRecombinationSize;
+        // Rows that kept their genome are not evaluated again, so the number of cycles is
+        // driven by the evaluations actually spent instead of eval_limit / populationSize
+        int last_evaluations_without_mutation = budget.getLimit() / 20;
+        int fittestSize = resume != null ? resume.fittestSize : config.fittestSize;
+        int mutationSize = resume != null ? resume.mutationSize : config.mutationSize;
+        int recombinationSize = resume != null ? resume.recombinationSize : config.recombinationSize;
 
         double previousCycleFitness = -1000;
-        int maxFitnessCycle = 0;
-        double maxFitness = 0.0;
-
-        for (int i = 0; i < cycles; i++) {
-            // If we reach the last last_cycles_without_mutation cycles, 
-            // we must stop mutating in order to preserve the currently found good population
-            if (cycles - i < last_cycles_without_mutation) {
-                if (fittestSize > 0) {
-                    fittestSize = initialFittestSize + mutationSize;
-                    mutationSize = 0;
+        int maxFitnessCycle = resume != null ? resume.maxFitnessCycle : 0;
+        double maxFitness = resume != null ? resume.maxFitness : Double.NEGATIVE_INFINITY;
+        boolean printProgress = config.printProgress && island == null;
+        TraceSink trace = printProgress ? AsyncTraceSink.open(config, resume != null) : TraceSink.NULL;
+        GenerationProfiler profiler = config.profile ? new GenerationProfiler(true) : GenerationProfiler.DISABLED;
+        CheckpointWriter checkpoints = config.checkpointFile != null && island == null
+            ? new CheckpointWriter(Paths.get(config.checkpointFile))
+            : null;
+        int firstCycle = resume != null ? resume.cycle : 0;
+        int cycles = firstCycle;
+        // Set when a generation without mutation cost no evaluations
+        boolean stalled = false;
+        int freeGenerations = 0;
+
+        try {
+            // Generations answered entirely from a fitness cache spend nothing, the run stops after
+            // Constants.MAX_FREE_GENERATIONS of them in a row and the cycle bound stays as a backstop
+            for (int i = firstCycle; i < budget.getLimit() && !budget.shouldStop(); i++) {
+                int remaining = budget.getRemaining();
+                boolean lastGeneration = tribe.getPendingEvaluations() > remaining;
+                if (lastGeneration) {
+                    if (remaining == 0) {
+                        break;
+                    }
+                    // The last generation only evaluates the offspring that still fit into the budget
+                    tribe.truncatePending(remaining);
                 }
-                else {
-                    recombinationSize = initialRecombinationSize + mutationSize;
-                    mutationSize = 0;
+                cycles = i;
+                if (checkpoints != null && i > firstCycle && i % config.checkpointInterval == 0) {
+                    // Only copies the state, the file is written in the background
+                    checkpoints.save(new Checkpoint(config, i, budget, fittestSize, recombinationSize,
+                        mutationSize, maxFitness, maxFitnessCycle, tribe, surrogate, random));
+                }
+                if (stalled) {
+                    // The fitness cache answered the whole previous generation, its recombinations
+                    // only reproduce known genomes, so mutate once to spend the rest of the budget
+                    fittestSize = config.fittestSize;
+                    recombinationSize = config.recombinationSize;
+                    mutationSize = config.mutationSize;
+                }
+                // If we reach the last last_evaluations_without_mutation evaluations,
+                // we must stop mutating in order to preserve the currently found good population
+                else if (budget.getRemaining() < last_evaluations_without_mutation) {
+                    if (fittestSize > 0) {
+                        fittestSize = config.fittestSize + mutationSize;
+                        mutationSize = 0;
+                    }
+                    else {
+                        recombinationSize = config.recombinationSize + mutationSize;
+                        mutationSize = 0;
+                    }
                 }
-            }
 
-            tribe.recalculateFitness();
-            double currentHighestFitness = tribe.getHighestFitness();
-            if(currentHighestFitness > maxFitness) {
-                maxFitness = currentHighestFitness;
-                maxFitnessCycle = i;
+                profiler.beginGeneration(i, profiler.isEnabled() ? tribe.getPendingEvaluations() : 0);
+                long evaluationStart = profiler.start();
+                int usedBefore = budget.getUsed();
+                try {
+                    tribe.recalculateFitness(evaluator, surrogate);
+                }
+                catch (EvaluationBudget.ExhaustedException e) {
+                    // Other islands spent the rest of the shared budget in the meantime
+                    break;
+                }
+                profiler.stop(GenerationProfiler.Phase.EVALUATION, evaluationStart);
+                boolean free = budget.getUsed() == usedBefore;
+                stalled = free && mutationSize == 0;
+                freeGenerations = free ? freeGenerations + 1 : 0;
+                double currentHighestFitness = tribe.getHighestFitness();
+                if(currentHighestFitness > maxFitness) {
+                    maxFitness = currentHighestFitness;
+                    maxFitnessCycle = i;
+                }
+
+                if (island != null) {
+                    island.migrate(i, tribe);
+                }
+                trace.record(i, budget.getUsed(), maxFitness, currentHighestFitness);
+                if (lastGeneration) {
+                    // The truncated population may be too small to breed from
+                    profiler.endGeneration(0);
+                    break;
+                }
+                if (freeGenerations >= Constants.MAX_FREE_GENERATIONS) {
+                    // Even mutation only finds cached genomes, the population has converged
+                    System.err.println("No new genomes for " + freeGenerations + " generations, stopping with "
+                        + budget.getRemaining() + " of " + budget.getLimit() + " evaluations unspent");
+                    profiler.endGeneration(0);
+                    break;
+                }
+
+                Population nextGeneration = createNextGeneration(tribe, spare, recombinationSize, mutationSize, fittestSize,
+                    surrogate, config.surrogateFactor, profiler);
+                spare = tribe;
+                tribe = nextGeneration;
+                profiler.endGeneration(recombinationSize + mutationSize);
             }
+        }
+        finally {
+            // Drains the writer, so the lines below come after the whole trace
+            trace.close();
+            if (checkpoints != null) {
+                checkpoints.close();
+            }
+        }
 
-            System.out.println(maxFitness);
+        if (printProgress) {
+            // System.out.println("Max fitness found: " + maxFitness);
+            System.out.println(maxFitnessCycle);
+            // System.out.println("Average: " + tribe.getAverage());
+            // System.out.println("Standard deviation: " + tribe.getStandardDeviation());
+            // tribe.print();
+        }
+        profiler.printSummary();
+        return new RunResult(maxFitness, maxFitnessCycle, cycles + 1, budget.getUsed());
+    }
+
+    // Variation and elitism of one cycle, tribe must already be evaluated. The offspring are
+    // written into the rows of nextGeneration, which is cleared first and returned, so a run
+    // that alternates two buffers allocates nothing per generation.
+    static Population createNextGeneration(
+        Population tribe,
+        Population nextGeneration,
+        int recombinationSize,
+        int mutationSize,
+        int fittestSize,
+        GenerationProfiler profiler) {
+
+        return createNextGeneration(tribe, nextGeneration, recombinationSize, mutationSize, fittestSize, null, 1, profiler);
+    }
 
-            Population nextGeneration = new Population(parentSelectionType, populationSize, rankingType);
-            nextGeneration.clearPopulation();
+    // With a trained surrogate, variation runs surrogateFactor times and only the
+    // recombinationSize + mutationSize offspring with the best predicted fitness are kept
+    static Population createNextGeneration(
+        Population tribe,
+        Population nextGeneration,
+        int recombinationSize,
+        int mutationSize,
+        int fittestSize,
+        SurrogateModel surrogate,
+        int surrogateFactor,
+        GenerationProfiler profiler) {
 
+        long start = profiler.start();
+        nextGeneration.clearPopulation();
+        profiler.stop(GenerationProfiler.Phase.ASSEMBLY, start);
+
+        // Separate rounds instead of larger counts, roulette selection draws without replacement
+        int rounds = surrogate != null && surrogate.isReady() ? surrogateFactor : 1;
+        for (int round = 0; round < rounds; round++) {
             // RECOMBINATION
             if (recombinationSize > 0) {
-                DoubleIndividual[] newChildren = tribe.createNewChildren(recombinationSize);
-                nextGeneration.addIndividuals(newChildren);
+                start = profiler.start();
+                int[] parents = tribe.selectParents(recombinationSize, tribe.selectionBuffer(recombinationSize));
+                profiler.stop(GenerationProfiler.Phase.PARENT_SELECTION, start);
+
+                start = profiler.start();
+                tribe.recombine(parents, recombinationSize, nextGeneration);
+                profiler.stop(GenerationProfiler.Phase.RECOMBINATION, start);
             }
 
-            // MUTATION
+            // MUTATION (includes picking the individuals to mutate)
             if (mutationSize > 0) {
-                DoubleIndividual[] mutatedChildren = tribe.mutateIndividualsByDouble(mutationSize);
-                nextGeneration.addIndividuals(mutatedChildren);
+                start = profiler.start();
+                tribe.mutateIndividualsByDouble(mutationSize, nextGeneration);
+                profiler.stop(GenerationProfiler.Phase.MUTATION, start);
             }
+        }
 
-            if (fittestSize > 0) {
-                DoubleIndividual[] fittestIndividuals = tribe.selectTopIndividuals(fittestSize);
-                nextGeneration.addIndividuals(fittestIndividuals);
-            }
+        if (rounds > 1) {
+            start = profiler.start();
+            nextGeneration.screenOffspring(surrogate, recombinationSize + mutationSize);
+            profiler.stop(GenerationProfiler.Phase.SCREENING, start);
+        }
 
-            tribe = nextGeneration;
+        if (fittestSize > 0) {
+            start = profiler.start();
+            int[] fittestIndividuals = tribe.selectTopIndividuals(fittestSize, tribe.selectionBuffer(fittestSize));
+            nextGeneration.addIndividuals(tribe, fittestIndividuals, fittestSize);
+            profiler.stop(GenerationProfiler.Phase.ELITISM, start);
         }
 
-        // System.out.println("Max fitness found: " + maxFitness);
-        System.out.println(maxFitnessCycle);
-        // System.out.println("Average: " + tribe.getAverage());
-        // System.out.println("Standard deviation: " + tribe.getStandardDeviation());
-        // tribe.print();
+        return nextGeneration;
     }
-}
\ No newline at end of file
+}
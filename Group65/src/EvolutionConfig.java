@@ -0,0 +1,197 @@
+import java.util.Properties;
+
+/**
+ * Parameters of one evolutionary run. Defaults come from Constants; fromSystemProperties applies
+ * the -D overrides that the tuning scripts pass on the command line.
+ */
+public class EvolutionConfig {
+    public int dimensions = Constants.DIMENSIONS;
+    public int populationSize = Constants.POPULATION_SIZE;
+    public int fittestSize = Constants.FITTEST_SIZE;
+    public int recombinationSize = Constants.RECOMBINATION_SIZE;
+    public int mutationSize = Constants.MUTATION_SIZE;
+    public ParentSelectionType parentSelectionType = Constants.CURRENT_PARENT_SELECTION_TYPE;
+    public RankingType rankingType = Constants.DEFAULT_RANKING_TYPE;
+    public int evaluationThreads = Constants.EVALUATION_THREADS;
+    public int fitnessCacheSize = Constants.FITNESS_CACHE_SIZE;
+
+    public EngineType engine = Constants.ENGINE;
+    public int cmaLambda = Constants.CMA_LAMBDA;
+    public double cmaSigma = Constants.CMA_SIGMA;
+
+    public int surrogateFactor = Constants.SURROGATE_FACTOR;
+    public int surrogateNeighbours = Constants.SURROGATE_NEIGHBOURS;
+    public int surrogateArchiveSize = Constants.SURROGATE_ARCHIVE_SIZE;
+
+    public int steadyStateOffspring = Constants.STEADY_STATE_OFFSPRING;
+    public int evaluationQueue = Constants.EVALUATION_QUEUE;
+
+    // Early stops, see EvaluationBudget.shouldStop
+    public double targetFitness = Constants.TARGET_FITNESS;
+    public int plateauEvaluations = Constants.PLATEAU_EVALUATIONS;
+
+    // Periodic checkpoint file (null for none), and whether to continue from it if it exists
+    public String checkpointFile = null;
+    public int checkpointInterval = Constants.CHECKPOINT_INTERVAL;
+    public boolean resume = false;
+
+    public int islands = Constants.ISLANDS;
+    public int migrationInterval = Constants.MIGRATION_INTERVAL;
+    public int migrationSize = Constants.MIGRATION_SIZE;
+    public MigrationTopology migrationTopology = Constants.MIGRATION_TOPOLOGY;
+
+    // Per-cycle fitness trace, on stdout in TEXT format the PowerShell tuning script parses it
+    public boolean printProgress = true;
+    public TraceFormat traceFormat = Constants.TRACE_FORMAT;
+    public String traceFile = Constants.TRACE_FILE;
+    public int traceSampling = Constants.TRACE_SAMPLING;
+
+    // Per-phase timers and GenerationEvents, summary printed at the end of the run
+    public boolean profile = Constants.PROFILE;
+
+    // jdk.incubator.vector backend for the per-dimension loops, falls back to scalar if unavailable
+    public boolean vectorKernels = Constants.VECTOR_KERNELS;
+
+    public static EvolutionConfig fromSystemProperties() {
+        EvolutionConfig config = new EvolutionConfig();
+        config.dimensions = intProperty("dimensions", config.dimensions);
+        config.populationSize = intProperty("populationSize", config.populationSize);
+        config.fittestSize = intProperty("fittestSize", config.fittestSize);
+        config.recombinationSize = intProperty("recombinationSize", config.recombinationSize);
+        config.mutationSize = intProperty("mutationSize", config.mutationSize);
+        config.evaluationThreads = intProperty("evaluationThreads", config.evaluationThreads);
+        config.fitnessCacheSize = intProperty("fitnessCacheSize", config.fitnessCacheSize);
+        config.islands = intProperty("islands", config.islands);
+        config.migrationInterval = intProperty("migrationInterval", config.migrationInterval);
+        config.migrationSize = intProperty("migrationSize", config.migrationSize);
+        config.traceSampling = intProperty("traceSampling", config.traceSampling);
+        config.cmaLambda = intProperty("cmaLambda", config.cmaLambda);
+        config.surrogateFactor = intProperty("surrogateFactor", config.surrogateFactor);
+        config.surrogateNeighbours = intProperty("surrogateNeighbours", config.surrogateNeighbours);
+        config.surrogateArchiveSize = intProperty("surrogateArchiveSize", config.surrogateArchiveSize);
+        config.checkpointInterval = intProperty("checkpointInterval", config.checkpointInterval);
+        config.steadyStateOffspring = intProperty("steadyStateOffspring", config.steadyStateOffspring);
+        config.evaluationQueue = intProperty("evaluationQueue", config.evaluationQueue);
+        config.plateauEvaluations = intProperty("plateauEvaluations", config.plateauEvaluations);
+
+        String targetFitnessString = System.getProperty("targetFitness");
+        if (targetFitnessString != null && !targetFitnessString.isEmpty()) {
+            config.targetFitness = Double.parseDouble(targetFitnessString);
+        }
+
+        String checkpointFileString = System.getProperty("checkpointFile");
+        if (checkpointFileString != null && !checkpointFileString.isEmpty()) {
+            config.checkpointFile = checkpointFileString;
+        }
+
+        String resumeString = System.getProperty("resume");
+        if (resumeString != null && !resumeString.isEmpty()) {
+            config.resume = Boolean.parseBoolean(resumeString);
+        }
+
+        String cmaSigmaString = System.getProperty("cmaSigma");
+        if (cmaSigmaString != null && !cmaSigmaString.isEmpty()) {
+            config.cmaSigma = Double.parseDouble(cmaSigmaString);
+        }
+
+        String engineString = System.getProperty("engine");
+        if (engineString != null && !engineString.isEmpty()) {
+            config.engine = EngineType.valueOf(engineString);
+        }
+
+        String traceFormatString = System.getProperty("traceFormat");
+        if (traceFormatString != null && !traceFormatString.isEmpty()) {
+            config.traceFormat = TraceFormat.valueOf(traceFormatString);
+        }
+
+        String traceFileString = System.getProperty("traceFile");
+        if (traceFileString != null && !traceFileString.isEmpty()) {
+            config.traceFile = traceFileString;
+        }
+
+        String profileString = System.getProperty("profile");
+        if (profileString != null && !profileString.isEmpty()) {
+            config.profile = Boolean.parseBoolean(profileString);
+        }
+
+        String vectorKernelsString = System.getProperty("vectorKernels");
+        if (vectorKernelsString != null && !vectorKernelsString.isEmpty()) {
+            config.vectorKernels = Boolean.parseBoolean(vectorKernelsString);
+        }
+
+        String parentSelectionTypeString = System.getProperty("parentSelectionType");
+        if (parentSelectionTypeString != null && !parentSelectionTypeString.isEmpty()) {
+            config.parentSelectionType = ParentSelectionType.valueOf(parentSelectionTypeString);
+        }
+
+        String rankingTypeString = System.getProperty("rankingType");
+        if (rankingTypeString != null && !rankingTypeString.isEmpty()) {
+            config.rankingType = RankingType.valueOf(rankingTypeString);
+        }
+
+        String migrationTopologyString = System.getProperty("migrationTopology");
+        if (migrationTopologyString != null && !migrationTopologyString.isEmpty()) {
+            config.migrationTopology = MigrationTopology.valueOf(migrationTopologyString);
+        }
+
+        return config;
+    }
+
+    // Copy with the settings the evaluation itself defines, currently the genome length
+    public EvolutionConfig forEvaluation(Properties properties) {
+        EvolutionConfig copy = this.copy();
+        String dimensionString = properties != null ? properties.getProperty("Dimension") : null;
+        if (dimensionString != null && !dimensionString.isEmpty()) {
+            copy.dimensions = Integer.parseInt(dimensionString.trim());
+        }
+        if (copy.dimensions < 1) {
+            throw new IllegalArgumentException("Genomes need at least one dimension, got " + copy.dimensions);
+        }
+        return copy;
+    }
+
+    private static int intProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (value != null && !value.isEmpty()) {
+            return Integer.parseInt(value);
+        }
+        return defaultValue;
+    }
+
+    public EvolutionConfig copy() {
+        EvolutionConfig copy = new EvolutionConfig();
+        copy.dimensions = this.dimensions;
+        copy.populationSize = this.populationSize;
+        copy.fittestSize = this.fittestSize;
+        copy.recombinationSize = this.recombinationSize;
+        copy.mutationSize = this.mutationSize;
+        copy.parentSelectionType = this.parentSelectionType;
+        copy.rankingType = this.rankingType;
+        copy.evaluationThreads = this.evaluationThreads;
+        copy.fitnessCacheSize = this.fitnessCacheSize;
+        copy.engine = this.engine;
+        copy.cmaLambda = this.cmaLambda;
+        copy.cmaSigma = this.cmaSigma;
+        copy.surrogateFactor = this.surrogateFactor;
+        copy.surrogateNeighbours = this.surrogateNeighbours;
+        copy.surrogateArchiveSize = this.surrogateArchiveSize;
+        copy.steadyStateOffspring = this.steadyStateOffspring;
+        copy.evaluationQueue = this.evaluationQueue;
+        copy.targetFitness = this.targetFitness;
+        copy.plateauEvaluations = this.plateauEvaluations;
+        copy.checkpointFile = this.checkpointFile;
+        copy.checkpointInterval = this.checkpointInterval;
+        copy.resume = this.resume;
+        copy.islands = this.islands;
+        copy.migrationInterval = this.migrationInterval;
+        copy.migrationSize = this.migrationSize;
+        copy.migrationTopology = this.migrationTopology;
+        copy.printProgress = this.printProgress;
+        copy.traceFormat = this.traceFormat;
+        copy.traceFile = this.traceFile;
+        copy.traceSampling = this.traceSampling;
+        copy.profile = this.profile;
+        copy.vectorKernels = this.vectorKernels;
+        return copy;
+    }
+}
@@ -0,0 +1,263 @@
+import org.vu.contest.ContestEvaluation;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs every (function x parent selection x ranking x seed) combination concurrently in one JVM
+ * and writes the results as CSV instead of the spreadsheets under Statistics/. Every run gets its
+ * own evaluation instance, budget and the random stream a contest run with that seed would get.
+ *
+ * -runs=file streams one row per run, in matrix order as soon as the run and all runs before it
+ * are done. The summary has one row per (function, selection, ranking) with mean, standard
+ * deviation, min, quartiles and max of the contest score and of the evaluations needed to reach
+ * -target, computed in a single pass (SummaryStatistics). It goes to -summary=file or stdout.
+ * -stop=true ends every run as soon as it reaches -target instead of spending the whole budget.
+ *
+ * java -cp contest.jar:. ExperimentRunner -functions=SphereEvaluation,BentCigarFunction -selections=ROULETTE_WHEEL,TOURNAMENT -rankings=LINEAR,EXPONENTIAL -seeds=1-10 -target=9.9 -runs=runs.csv
+ */
+public class ExperimentRunner {
+    private static final String RUN_HEADER =
+        "function,selection,ranking,seed,score,max_fitness,evaluations,evaluations_to_target,millis_to_target,max_fitness_cycle,millis";
+    private static final String SUMMARY_HEADER =
+        "function,selection,ranking,runs,score_mean,score_sd,score_min,score_q1,score_median,score_q3,score_max,"
+            + "hits,ett_mean,ett_sd,ett_min,ett_q1,ett_median,ett_q3,ett_max";
+
+    public static void main(String[] args) throws IOException {
+        String[] functions = {"SphereEvaluation", "BentCigarFunction", "SchaffersEvaluation", "KatsuuraEvaluation"};
+        String[] selections = {ParentSelectionType.ROULETTE_WHEEL.name(), ParentSelectionType.TOURNAMENT.name()};
+        String[] rankings = {RankingType.LINEAR.name()};
+        long firstSeed = 1;
+        long lastSeed = 10;
+        double target = 9.9;
+        boolean stop = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String runsFile = null;
+        String summaryFile = null;
+
+        for (String arg : args) {
+            String[] pair = CommandLine.option(arg);
+            switch (pair[0]) {
+                case "functions": functions = pair[1].split(","); break;
+                case "selections": selections = pair[1].split(","); break;
+                case "rankings": rankings = pair[1].split(","); break;
+                case "seeds":
+                    // A range first-last or a count starting at 1
+                    String[] range = pair[1].split("-", 2);
+                    firstSeed = range.length == 2 ? Long.parseLong(range[0]) : 1;
+                    lastSeed = Long.parseLong(range[range.length - 1]);
+                    break;
+                case "target": target = Double.parseDouble(pair[1]); break;
+                case "stop": stop = Boolean.parseBoolean(pair[1]); break;
+                case "threads": threads = Integer.parseInt(pair[1]); break;
+                case "runs": runsFile = pair[1]; break;
+                case "summary": summaryFile = pair[1]; break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        EvolutionConfig base = EvolutionConfig.fromSystemProperties();
+        base.printProgress = false;
+        base.evaluationThreads = 1;
+        if (stop) {
+            base.targetFitness = target;
+        }
+        List<Cell> cells = new ArrayList<>();
+        for (String function : functions) {
+            for (String selection : selections) {
+                for (String ranking : rankings) {
+                    EvolutionConfig config = base.copy();
+                    config.parentSelectionType = ParentSelectionType.valueOf(selection.trim());
+                    config.rankingType = RankingType.valueOf(ranking.trim());
+                    cells.add(new Cell(function.trim(), config));
+                }
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "experiment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try (PrintWriter runs = runsFile != null ? new PrintWriter(new FileWriter(runsFile)) : null;
+             PrintWriter summary = new PrintWriter(summaryFile != null ? new FileWriter(summaryFile) : new NonClosingWriter())) {
+
+            List<Future<Run>> pending = new ArrayList<>();
+            for (Cell cell : cells) {
+                for (long seed = firstSeed; seed <= lastSeed; seed++) {
+                    final long runSeed = seed;
+                    final double runTarget = target;
+                    pending.add(pool.submit(() -> run(cell, runSeed, runTarget)));
+                }
+            }
+
+            if (runs != null) {
+                runs.println(RUN_HEADER);
+            }
+            // Matrix order, so rows and aggregates do not depend on scheduling
+            int next = 0;
+            for (Cell cell : cells) {
+                for (long seed = firstSeed; seed <= lastSeed; seed++) {
+                    Run run = await(pending.get(next++));
+                    cell.add(run);
+                    if (runs != null) {
+                        runs.println(String.join(",", cell.function, cell.config.parentSelectionType.name(),
+                            cell.config.rankingType.name(), String.valueOf(run.seed), String.valueOf(run.score),
+                            String.valueOf(run.result.maxFitness), String.valueOf(run.result.evaluations),
+                            String.valueOf(run.evaluationsToTarget), String.valueOf(run.millisToTarget),
+                            String.valueOf(run.result.maxFitnessCycle),
+                            String.valueOf(run.millis)));
+                        runs.flush();
+                    }
+                }
+            }
+
+            summary.println(SUMMARY_HEADER);
+            for (Cell cell : cells) {
+                summary.println(cell.toCsv());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    private static Run run(Cell cell, long seed, double target) throws ReflectiveOperationException {
+        ContestEvaluation evaluation = (ContestEvaluation) Class.forName(cell.function).getDeclaredConstructor().newInstance();
+        TargetTracker tracker = new TargetTracker(evaluation, target);
+        int limit = Integer.parseInt(evaluation.getProperties().getProperty("Evaluations"));
+        long start = System.nanoTime();
+        RunResult result = Evolution.evolve(tracker, limit, cell.config, RandomStream.seeded(seed));
+        long end = System.nanoTime();
+        long millisToTarget = tracker.evaluationsToTarget >= 0 ? (tracker.targetTime - start) / 1000000 : -1;
+        return new Run(seed, evaluation.getFinalResult(), result, tracker.evaluationsToTarget, millisToTarget,
+            (end - start) / 1000000);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the experiment", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Experiment run failed", e.getCause());
+        }
+    }
+
+    // One (function, selection, ranking) combination and the aggregate of its runs
+    private static final class Cell {
+        private final String function;
+        private final EvolutionConfig config;
+        private final SummaryStatistics scores = new SummaryStatistics();
+        // Only runs that reached the target
+        private final SummaryStatistics evaluationsToTarget = new SummaryStatistics();
+
+        Cell(String function, EvolutionConfig config) {
+            this.function = function;
+            this.config = config;
+        }
+
+        void add(Run run) {
+            this.scores.add(run.score);
+            if (run.evaluationsToTarget >= 0) {
+                this.evaluationsToTarget.add(run.evaluationsToTarget);
+            }
+        }
+
+        String toCsv() {
+            SummaryStatistics s = this.scores;
+            SummaryStatistics e = this.evaluationsToTarget;
+            return String.join(",", this.function, this.config.parentSelectionType.name(), this.config.rankingType.name(),
+                String.valueOf(s.getCount()), String.valueOf(s.getMean()), String.valueOf(s.getStandardDeviation()),
+                String.valueOf(s.getMin()), String.valueOf(s.getLowerQuartile()), String.valueOf(s.getMedian()),
+                String.valueOf(s.getUpperQuartile()), String.valueOf(s.getMax()), String.valueOf(e.getCount()),
+                String.valueOf(e.getMean()), String.valueOf(e.getStandardDeviation()), String.valueOf(e.getMin()),
+                String.valueOf(e.getLowerQuartile()), String.valueOf(e.getMedian()), String.valueOf(e.getUpperQuartile()),
+                String.valueOf(e.getMax()));
+        }
+    }
+
+    private static final class Run {
+        private final long seed;
+        private final double score;
+        private final RunResult result;
+        private final int evaluationsToTarget;
+        private final long millisToTarget;
+        private final long millis;
+
+        Run(long seed, double score, RunResult result, int evaluationsToTarget, long millisToTarget, long millis) {
+            this.seed = seed;
+            this.score = score;
+            this.result = result;
+            this.evaluationsToTarget = evaluationsToTarget;
+            this.millisToTarget = millisToTarget;
+            this.millis = millis;
+        }
+    }
+
+    // Counts the evaluations until the first fitness value at or above target, -1 if never, and
+    // notes the time of that evaluation
+    private static final class TargetTracker implements ContestEvaluation {
+        private final ContestEvaluation delegate;
+        private final double target;
+        private int evaluations;
+        private int evaluationsToTarget = -1;
+        private long targetTime;
+
+        TargetTracker(ContestEvaluation delegate, double target) {
+            this.delegate = delegate;
+            this.target = target;
+        }
+
+        public Object evaluate(Object genome) {
+            Object result = this.delegate.evaluate(genome);
+            if (result != null) {
+                this.evaluations++;
+                if (this.evaluationsToTarget < 0 && (Double) result >= this.target) {
+                    this.evaluationsToTarget = this.evaluations;
+                    this.targetTime = System.nanoTime();
+                }
+            }
+            return result;
+        }
+
+        public Object getData(Object argument) {
+            return this.delegate.getData(argument);
+        }
+
+        public double getFinalResult() {
+            return this.delegate.getFinalResult();
+        }
+
+        public Properties getProperties() {
+            return this.delegate.getProperties();
+        }
+    }
+
+    // System.out behind a Writer that the try-with-resources above does not close
+    private static final class NonClosingWriter extends Writer {
+        public void write(char[] buffer, int offset, int length) {
+            System.out.print(new String(buffer, offset, length));
+        }
+
+        public void flush() {
+            System.out.flush();
+        }
+
+        public void close() {
+            this.flush();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Weighted sampling without replacement over a fixed set of n weights. Backed by a Fenwick
+ * (binary indexed) tree, so every draw and removal is O(log n) and nothing is allocated per
+ * draw. The tree is reused between calls to reset as long as n does not grow.
+ */
+public class FenwickSampler {
+    private double[] tree = new double[1];
+    private double[] weights = new double[0];
+    private int size;
+    private int remaining;
+    // Highest index that has not been drawn yet
+    private int last;
+
+    public void reset(double[] source, int n) {
+        if (this.weights.length < n) {
+            this.weights = new double[n];
+            this.tree = new double[n + 1];
+        }
+
+        this.size = n;
+        this.remaining = n;
+        this.last = n - 1;
+        System.arraycopy(source, 0, this.weights, 0, n);
+
+        // O(n) construction: every node pushes its partial sum to its parent
+        this.tree[0] = 0;
+        for (int i = 1; i <= n; i++) {
+            this.tree[i] = this.weights[i - 1];
+        }
+        for (int i = 1; i <= n; i++) {
+            int parent = i + (i & -i);
+            if (parent <= n) {
+                this.tree[parent] += this.tree[i];
+            }
+        }
+    }
+
+    public int getRemaining() {
+        return this.remaining;
+    }
+
+    // Draws index i with probability weight[i] / remaining weight and removes it. u in [0, 1)
+    public int sampleAndRemove(double u) {
+        if (this.remaining <= 0) {
+            throw new IllegalStateException("All " + this.size + " elements have already been drawn");
+        }
+
+        int index = this.find(u * this.total());
+        // Rounding, or only zero weights left: fall back to the highest index still available
+        if (index >= this.size || this.weights[index] <= 0) {
+            index = this.last;
+        }
+
+        this.remove(index);
+        return index;
+    }
+
+    private double total() {
+        double sum = 0;
+        for (int i = this.size; i > 0; i -= i & -i) {
+            sum += this.tree[i];
+        }
+        return sum;
+    }
+
+    // Smallest index whose inclusive prefix sum exceeds target
+    private int find(double target) {
+        int position = 0;
+        for (int step = Integer.highestOneBit(this.size); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= this.size && this.tree[next] <= target) {
+                position = next;
+                target -= this.tree[next];
+            }
+        }
+        return position;
+    }
+
+    private void remove(int index) {
+        double weight = this.weights[index];
+        this.weights[index] = -1; // marks the index as drawn
+        if (weight > 0) {
+            for (int i = index + 1; i <= this.size; i += i & -i) {
+                this.tree[i] -= weight;
+            }
+        }
+
+        this.remaining--;
+        while (this.last >= 0 && this.weights[this.last] < 0) {
+            this.last--;
+        }
+    }
+}
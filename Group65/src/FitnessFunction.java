@@ -0,0 +1,7 @@
+/**
+ * Fitness of a single genome. An instance is only ever called from one thread at a time,
+ * unless the implementation says otherwise.
+ */
+public interface FitnessFunction {
+    double evaluate(double[] genome);
+}
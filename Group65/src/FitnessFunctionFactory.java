@@ -0,0 +1,7 @@
+/**
+ * Hands out one FitnessFunction per evaluation worker. Factories for evaluators without
+ * shared state can return a fresh instance each time, so workers never contend.
+ */
+public interface FitnessFunctionFactory {
+    FitnessFunction create();
+}
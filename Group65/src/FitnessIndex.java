@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * Order-statistics tree over the rows of a population, ordered by ascending fitness (ties by
+ * row). It is a treap whose nodes are the row indices themselves, so inserting, removing and
+ * looking up the row at a given rank are O(log n) expected and allocate nothing. Priorities
+ * are a hash of the row, the run's RandomStream is not touched.
+ */
+public class FitnessIndex {
+    private static final int NONE = -1;
+
+    private final int[] left;
+    private final int[] right;
+    // Rows in the subtree of a node, 0 for rows that are not in the tree
+    private final int[] count;
+    private final int[] priority;
+    private final double[] key;
+    private int root = NONE;
+
+    // Results of split
+    private int lower;
+    private int upper;
+
+    public FitnessIndex(int capacity) {
+        this.left = new int[capacity];
+        this.right = new int[capacity];
+        this.count = new int[capacity];
+        this.priority = new int[capacity];
+        this.key = new double[capacity];
+        for (int row = 0; row < capacity; row++) {
+            this.priority[row] = mix(row);
+        }
+    }
+
+    public int size() {
+        return this.root == NONE ? 0 : this.count[this.root];
+    }
+
+    public boolean contains(int row) {
+        return this.count[row] > 0;
+    }
+
+    public void clear() {
+        this.root = NONE;
+        Arrays.fill(this.count, 0);
+    }
+
+    public void insert(int row, double fitness) {
+        if (this.contains(row)) {
+            throw new IllegalStateException("Row " + row + " is already indexed");
+        }
+        this.key[row] = fitness;
+        this.left[row] = NONE;
+        this.right[row] = NONE;
+        this.count[row] = 1;
+        this.root = this.insert(this.root, row);
+    }
+
+    public void remove(int row) {
+        if (!this.contains(row)) {
+            throw new IllegalStateException("Row " + row + " is not indexed");
+        }
+        this.root = this.remove(this.root, row);
+        this.count[row] = 0;
+    }
+
+    // Row with the given rank, 0 is the least fit and size() - 1 the fittest
+    public int rowAtRank(int rank) {
+        if (rank < 0 || rank >= this.size()) {
+            throw new IndexOutOfBoundsException("Rank " + rank + " of " + this.size());
+        }
+        int node = this.root;
+        while (true) {
+            int below = this.left[node] == NONE ? 0 : this.count[this.left[node]];
+            if (rank < below) {
+                node = this.left[node];
+            }
+            else if (rank == below) {
+                return node;
+            }
+            else {
+                rank -= below + 1;
+                node = this.right[node];
+            }
+        }
+    }
+
+    public int worst() {
+        return this.rowAtRank(0);
+    }
+
+    public int best() {
+        return this.rowAtRank(this.size() - 1);
+    }
+
+    private int insert(int node, int row) {
+        if (node == NONE) {
+            return row;
+        }
+        if (this.priority[row] > this.priority[node]) {
+            // row becomes the root of this subtree
+            this.split(node, row);
+            this.left[row] = this.lower;
+            this.right[row] = this.upper;
+            this.update(row);
+            return row;
+        }
+        if (this.less(row, node)) {
+            this.left[node] = this.insert(this.left[node], row);
+        }
+        else {
+            this.right[node] = this.insert(this.right[node], row);
+        }
+        this.update(node);
+        return node;
+    }
+
+    private int remove(int node, int row) {
+        if (node == row) {
+            return this.merge(this.left[node], this.right[node]);
+        }
+        if (this.less(row, node)) {
+            this.left[node] = this.remove(this.left[node], row);
+        }
+        else {
+            this.right[node] = this.remove(this.right[node], row);
+        }
+        this.update(node);
+        return node;
+    }
+
+    // Splits the subtree into the rows ordered before row (lower) and after it (upper)
+    private void split(int node, int row) {
+        if (node == NONE) {
+            this.lower = NONE;
+            this.upper = NONE;
+        }
+        else if (this.less(node, row)) {
+            this.split(this.right[node], row);
+            this.right[node] = this.lower;
+            this.update(node);
+            this.lower = node;
+        }
+        else {
+            this.split(this.left[node], row);
+            this.left[node] = this.upper;
+            this.update(node);
+            this.upper = node;
+        }
+    }
+
+    // Joins two subtrees where every row of first is ordered before every row of second
+    private int merge(int first, int second) {
+        if (first == NONE) {
+            return second;
+        }
+        if (second == NONE) {
+            return first;
+        }
+        if (this.priority[first] > this.priority[second]) {
+            this.right[first] = this.merge(this.right[first], second);
+            this.update(first);
+            return first;
+        }
+        this.left[second] = this.merge(first, this.left[second]);
+        this.update(second);
+        return second;
+    }
+
+    private void update(int node) {
+        this.count[node] = 1
+            + (this.left[node] == NONE ? 0 : this.count[this.left[node]])
+            + (this.right[node] == NONE ? 0 : this.count[this.right[node]]);
+    }
+
+    private boolean less(int a, int b) {
+        int order = Double.compare(this.key[a], this.key[b]);
+        return order < 0 || (order == 0 && a < b);
+    }
+
+    // SplitMix64 finalizer, spreads consecutive rows over the whole int range
+    private static int mix(int row) {
+        long z = (row + 1) * 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return (int) ((z ^ (z >>> 31)) >>> 32);
+    }
+}
@@ -0,0 +1,54 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event committed once per generation while profiling is enabled. The event
+ * duration is the whole generation, the fields split it up into the phases of Evolution.run.
+ */
+@Name("evolution.Generation")
+@Label("Generation")
+@Category("Evolution")
+@Description("Time spent in each phase of one generation")
+@StackTrace(false)
+public class GenerationEvent extends jdk.jfr.Event {
+    @Label("Generation")
+    public int generation;
+
+    @Label("Evaluations")
+    public int evaluations;
+
+    @Label("Offspring")
+    public int offspring;
+
+    @Label("Evaluation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long evaluation;
+
+    @Label("Parent Selection")
+    @Timespan(Timespan.NANOSECONDS)
+    public long parentSelection;
+
+    @Label("Recombination")
+    @Timespan(Timespan.NANOSECONDS)
+    public long recombination;
+
+    @Label("Mutation")
+    @Timespan(Timespan.NANOSECONDS)
+    public long mutation;
+
+    @Label("Elitism")
+    @Timespan(Timespan.NANOSECONDS)
+    public long elitism;
+
+    @Label("Population Assembly")
+    @Timespan(Timespan.NANOSECONDS)
+    public long assembly;
+
+    @Label("Surrogate Screening")
+    @Timespan(Timespan.NANOSECONDS)
+    public long screening;
+}
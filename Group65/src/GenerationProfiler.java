@@ -0,0 +1,108 @@
+import java.util.Arrays;
+
+/**
+ * Per-phase timers for the generation loop. Every generation is committed as a
+ * GenerationEvent and added to run totals, which printSummary reports on stderr at the end
+ * of a run. A disabled profiler does not read the clock and records nothing.
+ */
+public class GenerationProfiler {
+    public enum Phase {
+        EVALUATION,
+        PARENT_SELECTION,
+        RECOMBINATION,
+        MUTATION,
+        ELITISM,
+        ASSEMBLY,
+        SCREENING
+    }
+
+    public static final GenerationProfiler DISABLED = new GenerationProfiler(false);
+
+    private final boolean enabled;
+    private final long[] generationNanos = new long[Phase.values().length];
+    private final long[] totalNanos = new long[Phase.values().length];
+    private GenerationEvent event;
+    private int generationEvaluations;
+    private long evaluations;
+    private long offspring;
+    private int generations;
+
+    public GenerationProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    public void beginGeneration(int generation, int evaluations) {
+        if (!this.enabled) {
+            return;
+        }
+        this.event = new GenerationEvent();
+        this.event.begin();
+        this.event.generation = generation;
+        this.generationEvaluations = evaluations;
+        Arrays.fill(this.generationNanos, 0);
+    }
+
+    // Timestamp to pass to stop
+    public long start() {
+        return this.enabled ? System.nanoTime() : 0;
+    }
+
+    public void stop(Phase phase, long start) {
+        if (this.enabled) {
+            this.generationNanos[phase.ordinal()] += System.nanoTime() - start;
+        }
+    }
+
+    public void endGeneration(int offspring) {
+        if (!this.enabled) {
+            return;
+        }
+        for (int i = 0; i < this.totalNanos.length; i++) {
+            this.totalNanos[i] += this.generationNanos[i];
+        }
+        this.evaluations += this.generationEvaluations;
+        this.offspring += offspring;
+        this.generations++;
+
+        GenerationEvent event = this.event;
+        event.end();
+        if (event.shouldCommit()) {
+            event.evaluations = this.generationEvaluations;
+            event.offspring = offspring;
+            event.evaluation = this.generationNanos[Phase.EVALUATION.ordinal()];
+            event.parentSelection = this.generationNanos[Phase.PARENT_SELECTION.ordinal()];
+            event.recombination = this.generationNanos[Phase.RECOMBINATION.ordinal()];
+            event.mutation = this.generationNanos[Phase.MUTATION.ordinal()];
+            event.elitism = this.generationNanos[Phase.ELITISM.ordinal()];
+            event.assembly = this.generationNanos[Phase.ASSEMBLY.ordinal()];
+            event.screening = this.generationNanos[Phase.SCREENING.ordinal()];
+            event.commit();
+        }
+        this.event = null;
+    }
+
+    public void printSummary() {
+        if (!this.enabled) {
+            return;
+        }
+        long total = 0;
+        for (long nanos : this.totalNanos) {
+            total += nanos;
+        }
+
+        System.err.println("Profile of " + this.generations + " generations, " + this.evaluations + " evaluations, "
+            + this.offspring + " offspring, " + total / 1000000 + " ms:");
+        for (Phase phase : Phase.values()) {
+            long nanos = this.totalNanos[phase.ordinal()];
+            System.err.println(String.format(" - %-16s %10.3f ms %6.1f%%", phase, nanos / 1e6, total == 0 ? 0 : 100.0 * nanos / total));
+        }
+        long evaluationNanos = this.totalNanos[Phase.EVALUATION.ordinal()];
+        System.err.println(String.format(" - evaluations per second: %.0f", evaluationNanos == 0 ? 0 : this.evaluations * 1e9 / evaluationNanos));
+        System.err.println(String.format(" - ns per offspring (without evaluation): %.1f",
+            this.offspring == 0 ? 0 : (double) (total - evaluationNanos) / this.offspring));
+    }
+}
@@ -0,0 +1,134 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Runs config.islands independent populations, one thread each, against one shared evaluation
+ * budget. Every config.migrationInterval cycles an island sends copies of its fittest
+ * individuals to its neighbours in the configured topology and takes in whatever has arrived
+ * in its own inbox. Inboxes are lock-free queues, so islands never wait for each other.
+ */
+public class IslandModel {
+    private final EvolutionConfig config;
+    private final Island[] islands;
+
+    private IslandModel(EvolutionConfig config, FitnessFunctionFactory factory, EvaluationBudget budget, RandomStream random) {
+        this.config = config;
+        this.islands = new Island[config.islands];
+        for (int i = 0; i < this.islands.length; i++) {
+            // Streams are split here on the calling thread, so a seed reproduces every island
+            this.islands[i] = new Island(i, factory, budget, random.split());
+        }
+    }
+
+    // The result is the one of the island that found the highest fitness
+    public static RunResult run(EvolutionConfig config, FitnessFunctionFactory factory, EvaluationBudget budget, RandomStream random) {
+        IslandModel model = new IslandModel(config, factory, budget, random);
+
+        Thread[] threads = new Thread[model.islands.length];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(model.islands[i], "island-" + i);
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the islands", e);
+            }
+        }
+
+        Island best = model.islands[0];
+        for (Island island : model.islands) {
+            if (island.failure != null) {
+                throw new IllegalStateException("Island " + island.index + " failed", island.failure);
+            }
+            if (island.result.maxFitness > best.result.maxFitness) {
+                best = island;
+            }
+        }
+
+        if (config.printProgress) {
+            // Ends with maxFitnessCycle like a single population run, the island goes to stderr
+            System.out.println(best.result.maxFitness);
+            System.out.println(best.result.maxFitnessCycle);
+            System.err.println("Best island: " + best.index);
+        }
+        return new RunResult(best.result.maxFitness, best.result.maxFitnessCycle, best.result.cycles, budget.getUsed());
+    }
+
+    public class Island implements Runnable {
+        private final int index;
+        private final FitnessFunctionFactory factory;
+        private final EvaluationBudget budget;
+        private final RandomStream random;
+        private final ConcurrentLinkedQueue<DoubleIndividual> inbox = new ConcurrentLinkedQueue<>();
+        private DoubleIndividual[] immigrants = new DoubleIndividual[0];
+        private RunResult result;
+        private volatile Throwable failure;
+
+        private Island(int index, FitnessFunctionFactory factory, EvaluationBudget budget, RandomStream random) {
+            this.index = index;
+            this.factory = factory;
+            this.budget = budget;
+            this.random = random;
+        }
+
+        public void run() {
+            ParallelEvaluator evaluator = new ParallelEvaluator(this.factory, config.evaluationThreads);
+            CachingEvaluator cache = Evolution.createCache(config, evaluator, this.budget);
+            try {
+                this.result = Evolution.run(config, cache != null ? cache : new BudgetedEvaluator(evaluator, this.budget), this.budget, this.random, this);
+            }
+            catch (Throwable e) {
+                this.failure = e;
+            }
+            finally {
+                evaluator.shutdown();
+            }
+        }
+
+        // Called by Evolution.run right after the fitness of the cycle is known
+        void migrate(int cycle, Population tribe) {
+            if (cycle == 0 || cycle % config.migrationInterval != 0) {
+                return;
+            }
+
+            int[] emigrants = tribe.selectTopIndividuals(Math.min(config.migrationSize, tribe.getSize()));
+            switch (config.migrationTopology) {
+                case RING:
+                    this.send(tribe, emigrants, islands[(this.index + 1) % islands.length]);
+                    break;
+                case FULLY_CONNECTED:
+                    for (Island neighbour : islands) {
+                        if (neighbour != this) {
+                            this.send(tribe, emigrants, neighbour);
+                        }
+                    }
+                    break;
+                case RANDOM:
+                    int target = this.random.nextInt(islands.length - 1);
+                    this.send(tribe, emigrants, islands[target >= this.index ? target + 1 : target]);
+                    break;
+            }
+
+            int arrived = 0;
+            DoubleIndividual immigrant;
+            while (arrived < tribe.getSize() && (immigrant = this.inbox.poll()) != null) {
+                if (arrived == this.immigrants.length) {
+                    this.immigrants = Arrays.copyOf(this.immigrants, Math.max(4, arrived * 2));
+                }
+                this.immigrants[arrived++] = immigrant;
+            }
+            tribe.replaceWorstIndividuals(this.immigrants, arrived);
+        }
+
+        private void send(Population tribe, int[] emigrants, Island neighbour) {
+            for (int row : emigrants) {
+                neighbour.inbox.offer(tribe.getIndividual(row));
+            }
+        }
+    }
+}
@@ -0,0 +1,5 @@
+public enum MigrationTopology {
+    RING,
+    FULLY_CONNECTED,
+    RANDOM
+}
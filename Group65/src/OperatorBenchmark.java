@@ -0,0 +1,181 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * Microbenchmarks for the EA operators, so the numbers in the header of Evolution can be
+ * measured instead of guessed. Every benchmark runs for every (population size, dimension)
+ * pair, after warmup, and reports the time per operation and the bytes allocated per
+ * operation on the benchmark thread. Fitness comes from a stub evaluator, so only the cost of
+ * the operators themselves is measured.
+ *
+ * java -cp contest.jar:. OperatorBenchmark -sizes=34,1000 -dimensions=10,100 -iterations=5 -time=500
+ *
+ * -vector=true benchmarks the Vector API kernels instead (see VariationKernels.load).
+ *
+ * The run ends with a scaling table of the whole generation against the dimension, e.g. with
+ * -dimensions=10,100,1000,2000. The time per generation and dimension stays flat as long as
+ * every operator is linear in the dimension.
+ *
+ * JMH cannot be used here: it requires benchmarks outside the default package, and such
+ * classes cannot see the engine, which has to stay in the default package for the contest jar.
+ */
+public class OperatorBenchmark {
+    // Keeps the JIT from discarding benchmark results
+    public static volatile Object sink;
+    public static volatile double doubleSink;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private interface Operation {
+        void run();
+    }
+
+    // Cheap stand-in for a fitness function: touches every gene, no allocation
+    static class StubEvaluator implements BatchEvaluator {
+        public void evaluate(double[] genomes, int rows, int dimensions, double[] fitness) {
+            for (int row = 0; row < rows; row++) {
+                double sum = 0;
+                int offset = row * dimensions;
+                for (int i = 0; i < dimensions; i++) {
+                    double gene = genomes[offset + i];
+                    sum += gene * gene;
+                }
+                fitness[row] = 10 / (1 + sum);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = {34, 1000};
+        int[] dimensions = {10, 100};
+        int iterations = 5;
+        long iterationMillis = 500;
+        boolean vector = false;
+
+        for (String arg : args) {
+            String[] pair = CommandLine.option(arg);
+            switch (pair[0]) {
+                case "sizes": sizes = CommandLine.intList(pair[1]); break;
+                case "dimensions": dimensions = CommandLine.intList(pair[1]); break;
+                case "iterations": iterations = Integer.parseInt(pair[1]); break;
+                case "time": iterationMillis = Long.parseLong(pair[1]); break;
+                case "vector": vector = Boolean.parseBoolean(pair[1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        VariationKernels kernels = VariationKernels.load(vector);
+        System.out.println("kernels: " + kernels.getClass().getSimpleName());
+        System.out.println(String.format("%-38s %8s %6s %14s %14s", "benchmark", "size", "dim", "ns/op", "bytes/op"));
+        double[][] generationNanos = new double[sizes.length][dimensions.length];
+        for (int s = 0; s < sizes.length; s++) {
+            for (int d = 0; d < dimensions.length; d++) {
+                generationNanos[s][d] = runAll(sizes[s], dimensions[d], iterations, iterationMillis, kernels);
+            }
+        }
+
+        System.out.println();
+        System.out.println(String.format("%-38s %8s %6s %14s %14s", "generation scaling", "size", "dim", "ns/generation", "ns/gen/dim"));
+        for (int s = 0; s < sizes.length; s++) {
+            for (int d = 0; d < dimensions.length; d++) {
+                System.out.println(String.format("%-38s %8d %6d %14.1f %14.2f", "", sizes[s], dimensions[d],
+                    generationNanos[s][d], generationNanos[s][d] / dimensions[d]));
+            }
+        }
+    }
+
+    // Returns the time per generation
+    private static double runAll(int size, int dimension, int iterations, long iterationMillis, VariationKernels kernels) {
+        RandomStream random = RandomStream.newStream();
+        BatchEvaluator evaluator = new StubEvaluator();
+        // Sizes of one generation in the same proportions as the Constants defaults
+        int recombinationSize = Math.max(2, (size * Constants.RECOMBINATION_SIZE / Constants.POPULATION_SIZE) & ~1);
+        int mutationSize = Math.max(1, size * Constants.MUTATION_SIZE / Constants.POPULATION_SIZE);
+        int fittestSize = Math.max(0, size - recombinationSize - mutationSize);
+
+        Population tribe = new Population(ParentSelectionType.ROULETTE_WHEEL, size, RankingType.LINEAR, random, dimension);
+        tribe.setKernels(kernels);
+        tribe.recalculateFitness(evaluator);
+        Population target = new Population(ParentSelectionType.ROULETTE_WHEEL, size, RankingType.LINEAR, random, dimension);
+        target.clearPopulation();
+
+        // Preallocated output like the generation loop uses, so bytes/op is the operators' own
+        int[] selected = new int[Math.max(recombinationSize, Math.max(1, fittestSize))];
+        measure("selectRouletteWheel", size, dimension, iterations, iterationMillis, () -> {
+            tribe.invalidateRanking();
+            sink = tribe.selectRouletteWheel(recombinationSize, selected);
+        });
+        measure("selectTournament", size, dimension, iterations, iterationMillis, () -> {
+            tribe.invalidateRanking();
+            sink = tribe.selectTournament(recombinationSize, selected);
+        });
+        measure("selectTopIndividuals", size, dimension, iterations, iterationMillis, () -> {
+            tribe.invalidateRanking();
+            sink = tribe.selectTopIndividuals(Math.max(1, fittestSize), selected);
+        });
+        measure("recombineIndividualBySwappingTails", size, dimension, iterations, iterationMillis, () -> {
+            if (target.getSize() + 2 > size) {
+                target.clearPopulation();
+            }
+            tribe.recombineIndividualBySwappingTails(random.nextInt(size), random.nextInt(size), target);
+        });
+        measure("recombineIndividualsByWholeArithmetic", size, dimension, iterations, iterationMillis, () -> {
+            if (target.getSize() + 2 > size) {
+                target.clearPopulation();
+            }
+            tribe.recombineIndividualsByWholeArithmetic(random.nextInt(size), random.nextInt(size), target);
+        });
+        measure("mutateIndividualsByDouble", size, dimension, iterations, iterationMillis, () -> {
+            tribe.invalidateRanking();
+            target.clearPopulation();
+            tribe.mutateIndividualsByDouble(mutationSize, target);
+        });
+
+        // Same double buffering as Evolution.run, bytes/op should stay near zero
+        Population[] buffers = {tribe, new Population(tribe)};
+        return measure("generation", size, dimension, iterations, iterationMillis, () -> {
+            buffers[0].recalculateFitness(evaluator);
+            Population next = Evolution.createNextGeneration(buffers[0], buffers[1], recombinationSize, mutationSize, fittestSize,
+                GenerationProfiler.DISABLED);
+            buffers[1] = buffers[0];
+            buffers[0] = next;
+            doubleSink = next.getHighestFitness();
+        });
+    }
+
+    // Prints and returns the time per operation
+    private static double measure(String name, int size, int dimension, int iterations, long iterationMillis, Operation operation) {
+        // Warmup: same amount of work as the measurement, results are thrown away
+        for (int i = 0; i < iterations; i++) {
+            runFor(operation, iterationMillis);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long operations = 0;
+        long nanos = 0;
+        long bytesBefore = THREADS.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            operations += runFor(operation, iterationMillis);
+            nanos += System.nanoTime() - start;
+        }
+        long bytes = THREADS.getThreadAllocatedBytes(threadId) - bytesBefore;
+
+        System.out.println(String.format("%-38s %8d %6d %14.1f %14.1f", name, size, dimension,
+            (double) nanos / operations, (double) bytes / operations));
+        return (double) nanos / operations;
+    }
+
+    private static long runFor(Operation operation, long millis) {
+        long deadline = System.nanoTime() + millis * 1000000L;
+        long operations = 0;
+        do {
+            // Batches of operations keep the clock out of the measurement
+            for (int i = 0; i < 16; i++) {
+                operation.run();
+            }
+            operations += 16;
+        } while (System.nanoTime() < deadline);
+        return operations;
+    }
+}
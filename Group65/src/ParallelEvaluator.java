@@ -0,0 +1,87 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchEvaluator that loops over a per-genome FitnessFunction (e.g. the contest evaluator) on a
+ * fixed number of workers. Every worker owns its own
+ * FitnessFunction and genome buffer and writes only to its own contiguous block of rows, so the
+ * fitness column comes out the same as with a single worker. With one worker everything runs on
+ * the calling thread.
+ */
+public class ParallelEvaluator implements BatchEvaluator {
+    private final FitnessFunction[] functions;
+    private final double[][] buffers;
+    private final ExecutorService pool;
+
+    public ParallelEvaluator(FitnessFunctionFactory factory, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one evaluation worker is required, got " + workers);
+        }
+
+        this.functions = new FitnessFunction[workers];
+        this.buffers = new double[workers][0];
+        for (int i = 0; i < workers; i++) {
+            this.functions[i] = factory.create();
+        }
+
+        this.pool = workers == 1 ? null : Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "fitness-evaluation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getWorkers() {
+        return this.functions.length;
+    }
+
+    public void evaluate(double[] genomes, int rows, int dimensions, double[] fitness) {
+        if (this.pool == null || rows < 2) {
+            this.evaluateRange(0, genomes, 0, rows, dimensions, fitness);
+            return;
+        }
+
+        int workers = Math.min(this.functions.length, rows);
+        Future<?>[] pending = new Future<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            final int worker = w;
+            final int from = (int) ((long) rows * w / workers);
+            final int to = (int) ((long) rows * (w + 1) / workers);
+            pending[w] = this.pool.submit(() -> this.evaluateRange(worker, genomes, from, to, dimensions, fitness));
+        }
+
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for fitness evaluation", e);
+            }
+            catch (ExecutionException e) {
+                throw new IllegalStateException("Fitness evaluation failed", e.getCause());
+            }
+        }
+    }
+
+    private void evaluateRange(int worker, double[] genomes, int from, int to, int dimensions, double[] fitness) {
+        if (this.buffers[worker].length != dimensions) {
+            this.buffers[worker] = new double[dimensions];
+        }
+        double[] buffer = this.buffers[worker];
+        FitnessFunction function = this.functions[worker];
+
+        for (int row = from; row < to; row++) {
+            System.arraycopy(genomes, row * dimensions, buffer, 0, dimensions);
+            fitness[row] = function.evaluate(buffer);
+        }
+    }
+
+    public void shutdown() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,210 @@
+import org.vu.contest.ContestEvaluation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * In-process replacement for the TuneFunction loop of parameter_tuning.ps1. Searches the
+ * (fittestSize, recombinationSize, mutationSize) grid for a fixed population size with grid,
+ * random or successive-halving search. All runs share one JVM and execute in parallel on a
+ * thread pool; every run gets its own evaluation instance, budget and random stream.
+ *
+ * java -cp contest.jar:. ParameterTuner -evaluation=SphereEvaluation -strategy=SUCCESSIVE_HALVING -runs=4 -samples=64
+ */
+public class ParameterTuner {
+    private final String evaluationName;
+    private final EvolutionConfig baseConfig;
+    private final ExecutorService pool;
+    private final RandomStream random;
+
+    public ParameterTuner(String evaluationName, EvolutionConfig baseConfig, int threads, RandomStream random) {
+        this.evaluationName = evaluationName;
+        this.baseConfig = baseConfig.copy();
+        this.baseConfig.printProgress = false;
+        this.baseConfig.evaluationThreads = 1;
+        this.random = random;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "parameter-tuning");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static void main(String[] args) {
+        String evaluationName = "SphereEvaluation";
+        TuningStrategy strategy = TuningStrategy.GRID;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int runs = 1;
+        int samples = 32;
+        long seed = 1;
+        EvolutionConfig config = EvolutionConfig.fromSystemProperties();
+        config.populationSize = 45;
+
+        for (String arg : args) {
+            String[] pair = CommandLine.option(arg);
+            switch (pair[0]) {
+                case "evaluation": evaluationName = pair[1]; break;
+                case "strategy": strategy = TuningStrategy.valueOf(pair[1]); break;
+                case "threads": threads = Integer.parseInt(pair[1]); break;
+                case "runs": runs = Integer.parseInt(pair[1]); break;
+                case "samples": samples = Integer.parseInt(pair[1]); break;
+                case "seed": seed = Long.parseLong(pair[1]); break;
+                case "populationSize": config.populationSize = Integer.parseInt(pair[1]); break;
+                case "parentSelectionType": config.parentSelectionType = ParentSelectionType.valueOf(pair[1]); break;
+                case "rankingType": config.rankingType = RankingType.valueOf(pair[1]); break;
+                default: throw new IllegalArgumentException("Unknown option " + arg);
+            }
+        }
+
+        RandomStream.setSeed(seed);
+        ParameterTuner tuner = new ParameterTuner(evaluationName, config, threads, RandomStream.newStream());
+        try {
+            List<TuningResult> results = tuner.tune(strategy, runs, samples);
+            System.out.println(evaluationName + " " + strategy + " results, best first:");
+            for (TuningResult result : results) {
+                System.out.println(" - " + result);
+            }
+        }
+        finally {
+            tuner.shutdown();
+        }
+    }
+
+    // Results of every configuration that was tried, best mean score first
+    public List<TuningResult> tune(TuningStrategy strategy, int runs, int samples) {
+        List<EvolutionConfig> grid = this.createGrid();
+        List<TuningResult> results;
+        switch (strategy) {
+            case GRID:
+                results = this.evaluate(grid, runs);
+                break;
+            case RANDOM:
+                results = this.evaluate(this.sample(grid, samples), runs);
+                break;
+            case SUCCESSIVE_HALVING:
+                results = this.successiveHalving(this.sample(grid, samples), runs);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy " + strategy);
+        }
+
+        results.sort(Comparator.comparingDouble(TuningResult::getMean).reversed());
+        return results;
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    // Same search space as TuneFunction in parameter_tuning.ps1
+    private List<EvolutionConfig> createGrid() {
+        int populationSize = this.baseConfig.populationSize;
+        List<EvolutionConfig> grid = new ArrayList<>();
+        for (int i = 0; i < populationSize; i += 2) {
+            for (int j = 2; j <= populationSize - i; j += 2) {
+                for (int k = 0; k <= populationSize - i - j && k <= 15; k += 2) {
+                    EvolutionConfig config = this.baseConfig.copy();
+                    config.fittestSize = i;
+                    config.recombinationSize = j;
+                    config.mutationSize = k;
+                    grid.add(config);
+                }
+            }
+        }
+        return grid;
+    }
+
+    private List<EvolutionConfig> sample(List<EvolutionConfig> grid, int samples) {
+        EvolutionConfig[] shuffled = ArrayHelper.shuffleArray(grid.toArray(new EvolutionConfig[0]), this.random);
+        return new ArrayList<>(Arrays.asList(shuffled).subList(0, Math.min(samples, shuffled.length)));
+    }
+
+    // Every round runs all survivors again with twice as many runs and keeps the better half
+    private List<TuningResult> successiveHalving(List<EvolutionConfig> candidates, int runs) {
+        List<TuningResult> all = new ArrayList<>();
+        List<TuningResult> survivors = new ArrayList<>();
+        for (EvolutionConfig config : candidates) {
+            TuningResult result = new TuningResult(config);
+            all.add(result);
+            survivors.add(result);
+        }
+
+        int roundRuns = runs;
+        while (true) {
+            this.runAll(survivors, roundRuns);
+            if (survivors.size() <= 1) {
+                break;
+            }
+            survivors.sort(Comparator.comparingDouble(TuningResult::getMean).reversed());
+            survivors = new ArrayList<>(survivors.subList(0, (survivors.size() + 1) / 2));
+            roundRuns *= 2;
+        }
+        return all;
+    }
+
+    private List<TuningResult> evaluate(List<EvolutionConfig> configs, int runs) {
+        List<TuningResult> results = new ArrayList<>();
+        for (EvolutionConfig config : configs) {
+            results.add(new TuningResult(config));
+        }
+        this.runAll(results, runs);
+        return results;
+    }
+
+    // Adds runs more runs to every result. Streams are split here in submission order,
+    // so the outcome does not depend on how the pool schedules the runs.
+    private void runAll(List<TuningResult> results, int runs) {
+        List<Future<Trial>> pending = new ArrayList<>();
+        for (TuningResult result : results) {
+            for (int r = 0; r < runs; r++) {
+                RandomStream stream = this.random.split();
+                pending.add(this.pool.submit(() -> this.runOnce(result.config, stream)));
+            }
+        }
+
+        int next = 0;
+        for (TuningResult result : results) {
+            for (int r = 0; r < runs; r++) {
+                Trial trial = this.await(pending.get(next++));
+                result.add(trial.score, trial.result);
+            }
+        }
+    }
+
+    private Trial runOnce(EvolutionConfig config, RandomStream stream) throws ReflectiveOperationException {
+        ContestEvaluation evaluation = (ContestEvaluation) Class.forName(this.evaluationName).getDeclaredConstructor().newInstance();
+        int limit = Integer.parseInt(evaluation.getProperties().getProperty("Evaluations"));
+        RunResult result = Evolution.evolve(evaluation, limit, config, stream);
+        // The score the contest reports for the run
+        return new Trial(evaluation.getFinalResult(), result);
+    }
+
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while tuning", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Tuning run failed", e.getCause());
+        }
+    }
+
+    private static final class Trial {
+        private final double score;
+        private final RunResult result;
+
+        Trial(double score, RunResult result) {
+            this.score = score;
+            this.result = result;
+        }
+    }
+}
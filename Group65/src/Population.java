@@ -1,352 +1,719 @@
+import java.nio.ByteBuffer;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.Random;
 
+/**
+ * Structure-of-arrays population: all genomes live row-major in one flat matrix
+ * (row r occupies genomes[r * dimensions .. (r + 1) * dimensions)), next to primitive
+ * fitness and probability columns. Selection operators hand out row indices, variation
+ * operators write their offspring straight into rows of the target population.
+ */
 public class Population {
     private double highestFitness;
-    private DoubleIndividual[] people;
     private ParentSelectionType parentSelectionType;
     private RankingType rankingType;
-    private double[] mean;
     private double[] standardDeviation;
     private int populationSize;
+    private int dimensions;
+
+    private int size;
+    private double[] genomes;
+    private double[] fitness;
+    private double[] probabilities;
+    // false for rows whose genome changed since their fitness was last computed
+    private boolean[] evaluated;
+    // Rows ordered by ascending fitness. Built at most once per generation by ensureRanking
+    // and shared by roulette, tournament and elitist selection until the fitness changes.
+    private int[] ranking;
+    private boolean rankingValid;
+    private int[] rankingBuffer;
+    // RankingTable row for the current size, looked up again only when the size changes
+    private double[] rankingTable;
+    private final FenwickSampler wheel = new FenwickSampler();
+    // Owned by the run (or worker) that created this population, never shared between threads
+    private final RandomStream random;
+
+    // Gather buffers for the rows that still need an evaluation
+    private int[] pendingRows;
+    private double[] pendingGenomes;
+    private double[] pendingFitness;
+
+    // Scratch space reused every generation: selected rows and the per-dimension mutation steps
+    private int[] selectedRows;
+    private double[] changingGauss;
+    private double[] mutationStep;
+    private VariationKernels kernels = VariationKernels.SCALAR;
+    // Mean and variance of the current rows, updated whenever a row is written or cleared
+    private PopulationStatistics statistics;
 
     public Population(
         ParentSelectionType parentSelectionType,
         int populationSize,
-        RankingType rankingType) {
+        RankingType rankingType,
+        RandomStream random) {
+
+        this(parentSelectionType, populationSize, rankingType, random, Constants.DIMENSIONS);
+    }
+
+    public Population(
+        ParentSelectionType parentSelectionType,
+        int populationSize,
+        RankingType rankingType,
+        RandomStream random,
+        int dimensions) {
 
         this.parentSelectionType = parentSelectionType;
-        this.people = new DoubleIndividual[populationSize];
+        this.random = random;
         this.populationSize = populationSize;
         this.rankingType = rankingType;
+        this.dimensions = dimensions;
+        this.allocateRows(populationSize);
         this.initializeMeanAndVariance();
+        this.statistics = new PopulationStatistics(this.dimensions, false);
 
         // Initialize each individual
-        for (int i = 0; i < this.people.length; i++) {
-            this.people[i] = new DoubleIndividual();
-        }
-    }
-
-    public void clearPopulation(){
-        this.people = new DoubleIndividual[0];
-    }
-
-    public void initializeMeanAndVariance(){
-        this.mean = new double[10];
-        this.standardDeviation = new double[10];
-        // Initialize the means and variances
-        for (int i = 0; i < 10; i++) {
-            this.mean[i] = 0;
-            this.standardDeviation[i] = 0;
+        for (int i = 0; i < populationSize; i++) {
+            this.initRandomGenotype(this.appendRow());
         }
+        this.statistics.rebuild(this.genomes, this.size, this.kernels);
     }
 
     public Population(
         ParentSelectionType parentSelectionType,
         DoubleIndividual[] individuals,
-        RankingType rankingType) {
+        RankingType rankingType,
+        RandomStream random) {
 
         this.parentSelectionType = parentSelectionType;
-        this.people = new DoubleIndividual[0];
+        this.random = random;
         this.populationSize = individuals.length;
         this.rankingType = rankingType;
+        this.dimensions = individuals.length > 0 ? individuals[0].getGenotypeDouble().length : Constants.DIMENSIONS;
+        this.allocateRows(individuals.length);
+        this.initializeMeanAndVariance();
+        this.statistics = new PopulationStatistics(this.dimensions, false);
         this.addIndividuals(individuals);
     }
 
-    public DoubleIndividual[] getPeople() {
-        return this.people;
+    // Empty buffer with the settings and capacity of template, for the double-buffered
+    // generation loop. Its rows are only ever written by variation operators and addIndividuals.
+    public Population(Population template) {
+        this(template.parentSelectionType, template.populationSize, template.rankingType, template.random, template.dimensions,
+            Math.max(template.populationSize, template.fitness.length),
+            new PopulationStatistics(template.dimensions, template.statistics.isTrackingCovariance()));
+        this.kernels = template.kernels;
     }
 
-    public DoubleIndividual[] createNewChildren(int count) {
-        DoubleIndividual[] parents = this.selectParents(count);
-        return recombine(parents);
+    private Population(
+        ParentSelectionType parentSelectionType,
+        int populationSize,
+        RankingType rankingType,
+        RandomStream random,
+        int dimensions,
+        int capacity,
+        PopulationStatistics statistics) {
+
+        this.parentSelectionType = parentSelectionType;
+        this.random = random;
+        this.populationSize = populationSize;
+        this.rankingType = rankingType;
+        this.dimensions = dimensions;
+        this.allocateRows(capacity);
+        this.initializeMeanAndVariance();
+        this.statistics = statistics;
+    }
+
+    // Bytes written by writeTo
+    public int encodedSize() {
+        return 3 * Integer.BYTES + Double.BYTES + (this.size * this.dimensions + this.size) * Double.BYTES + this.size
+            + this.statistics.encodedSize();
+    }
+
+    // Rows, fitness, dirty flags and running statistics, everything the next generation depends on
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.populationSize);
+        buffer.putInt(this.dimensions);
+        buffer.putInt(this.size);
+        buffer.putDouble(this.highestFitness);
+        Checkpoint.putDoubles(buffer, this.genomes, this.size * this.dimensions);
+        Checkpoint.putDoubles(buffer, this.fitness, this.size);
+        for (int row = 0; row < this.size; row++) {
+            buffer.put((byte) (this.evaluated[row] ? 1 : 0));
+        }
+        this.statistics.writeTo(buffer);
     }
 
-    public DoubleIndividual[] mutateIndividualsByDouble(int count) {
-        DoubleIndividual[] individualsForMutation = this.selectRouletteWheel(count);
-        //DoubleIndividual[] individualsForMutation = this.selectRandomly(count);
+    // Population as written by writeTo, drawing from random afterwards
+    public static Population readFrom(ByteBuffer buffer, ParentSelectionType parentSelectionType, RankingType rankingType, RandomStream random) {
+        int populationSize = buffer.getInt();
+        int dimensions = buffer.getInt();
+        int size = buffer.getInt();
+        double highestFitness = buffer.getDouble();
+        Population population = new Population(parentSelectionType, populationSize, rankingType, random, dimensions,
+            Math.max(populationSize, size), null);
+        population.size = size;
+        population.highestFitness = highestFitness;
+        Checkpoint.getDoubles(buffer, population.genomes, size * dimensions);
+        Checkpoint.getDoubles(buffer, population.fitness, size);
+        for (int row = 0; row < size; row++) {
+            population.evaluated[row] = buffer.get() != 0;
+        }
+        population.statistics = PopulationStatistics.readFrom(buffer);
+        return population;
+    }
+
+    private void allocateRows(int capacity){
+        this.size = 0;
+        this.genomes = new double[capacity * this.dimensions];
+        this.fitness = new double[capacity];
+        this.probabilities = new double[capacity];
+        this.evaluated = new boolean[capacity];
+        this.ranking = new int[capacity];
+        this.rankingBuffer = new int[capacity];
+        this.selectedRows = new int[capacity];
+    }
 
+    private void ensureCapacity(int capacity){
+        if (capacity <= this.fitness.length) {
+            return;
+        }
+        this.genomes = Arrays.copyOf(this.genomes, capacity * this.dimensions);
+        this.fitness = Arrays.copyOf(this.fitness, capacity);
+        this.probabilities = Arrays.copyOf(this.probabilities, capacity);
+        this.evaluated = Arrays.copyOf(this.evaluated, capacity);
+        this.ranking = new int[capacity];
+        this.rankingBuffer = new int[capacity];
+    }
+
+    // Returns the index of a fresh row at the end of the population
+    private int appendRow(){
+        this.ensureCapacity(this.size + 1);
+        int row = this.size++;
+        this.fitness[row] = 0;
+        this.probabilities[row] = 0;
+        this.evaluated[row] = false;
+        this.rankingValid = false;
+        return row;
+    }
+
+    private void initRandomGenotype(int row){
+        int offset = row * this.dimensions;
+        for (int i = 0; i < this.dimensions; i++) {
+            this.genomes[offset + i] = (this.random.nextDouble() * 10) - 5; //Randomly distributed between [-5, 5]
+        }
+    }
+
+    public void clearPopulation(){
+        this.size = 0;
+        this.rankingValid = false;
+        this.statistics.clear();
+    }
+
+    // Allocates the mutation work arrays once, the moments themselves come from statistics
+    public void initializeMeanAndVariance(){
+        if (this.standardDeviation == null || this.standardDeviation.length != this.dimensions) {
+            this.standardDeviation = new double[this.dimensions];
+            this.changingGauss = new double[this.dimensions];
+            this.mutationStep = new double[this.dimensions];
+        }
+    }
+
+    // Starts tracking the covariance of the rows as well, e.g. for covariance-aware operators
+    public void trackCovariance() {
+        if (!this.statistics.isTrackingCovariance()) {
+            this.statistics = new PopulationStatistics(this.dimensions, true);
+            this.statistics.rebuild(this.genomes, this.size, this.kernels);
+        }
+    }
+
+    public PopulationStatistics getStatistics() {
+        return this.statistics;
+    }
+
+    // Backend for the per-dimension loops of mutation and whole arithmetic recombination
+    public void setKernels(VariationKernels kernels) {
+        this.kernels = kernels;
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    public int getDimensions() {
+        return this.dimensions;
+    }
+
+    // Flat genome matrix, only the first getSize() rows are valid
+    public double[] getGenomes() {
+        return this.genomes;
+    }
+
+    public double getFitness(int row) {
+        return this.fitness[row];
+    }
+
+    public DoubleIndividual getIndividual(int row) {
+        int offset = row * this.dimensions;
+        return new DoubleIndividual(Arrays.copyOfRange(this.genomes, offset, offset + this.dimensions), this.fitness[row]);
+    }
+
+    public void createNewChildren(int count, Population target) {
+        int[] parents = this.selectParents(count);
+        recombine(parents, target);
+    }
+
+    public void mutateIndividualsByDouble(int count, Population target) {
+        int[] individualsForMutation = this.selectRouletteWheel(count, this.selectionBuffer(count));
+        //int[] individualsForMutation = this.selectRandomly(count, this.selectionBuffer(count));
+        this.mutateRows(individualsForMutation, count, target);
+    }
+
+    // Self-adaptive mutation of the first count given rows into fresh rows of the target,
+    // all of them move by the same step
+    void mutateRows(int[] individualsForMutation, int count, Population target) {
         //Initialize some variables
         this.initializeMeanAndVariance();
-        Random rand = new Random();
-        double constantGaussian = rand.nextGaussian();
-        double t1 = 1/Math.sqrt(2*Constants.DIMENSIONS);
-        double t2 = 1/Math.sqrt(2*Math.sqrt(Constants.DIMENSIONS));
-        double[] changingGauss = new double[10];
-        for (int a = 0; a < 10; a++) {
-            changingGauss[a] = rand.nextGaussian();
-        }
-
-        //Find Standard Deviation
-        for (int j = 0; j < Constants.DIMENSIONS; j++) {
-            for (int i = 0; i < this.people.length; i++) {
-                this.mean[j] += this.people[i].getGenotypeDouble()[j];
-            }
-            this.mean[j] /= this.people.length;
+        double constantGaussian = this.random.nextGaussian();
+        double t1 = 1/Math.sqrt(2*this.dimensions);
+        double t2 = 1/Math.sqrt(2*Math.sqrt(this.dimensions));
+        double[] changingGauss = this.changingGauss;
+        for (int a = 0; a < this.dimensions; a++) {
+            changingGauss[a] = this.random.nextGaussian();
+        }
 
-            for (int p = 0; p < this.people.length; p++) {
-                this.standardDeviation[j] += Math.pow(this.people[p].getGenotypeDouble()[j] - this.mean[j], 2);
-            }
-            this.standardDeviation[j] /= this.people.length-1;
+        //Find Standard Deviation from the running statistics, no pass over the matrix
+        this.statistics.getVariance(this.standardDeviation);
+        for (int j = 0; j < this.dimensions; j++) {
             if(this.standardDeviation[j] < 0){
                 System.out.print("SD is wrecked.");
             }
             this.standardDeviation[j] = Math.sqrt(this.standardDeviation[j]);
             this.standardDeviation[j] = this.standardDeviation[j] * Math.exp(t1 * constantGaussian + t2 * changingGauss[j]);
+            // Every mutant moves by the same step this generation
+            this.mutationStep[j] = this.standardDeviation[j] * changingGauss[j];
         }
 
-        //Mutate
-        for (int k = 0; k < individualsForMutation.length; k++) {
-            double[] newGenotype = new double[10];
-            for (int j = 0; j < Constants.DIMENSIONS; j++) {
-                newGenotype[j] = individualsForMutation[k].getGenotypeDouble()[j] + this.standardDeviation[j] * changingGauss[j];
+        //Mutate into fresh rows of the target
+        for (int k = 0; k < count; k++) {
+            int source = individualsForMutation[k] * this.dimensions;
+            int destination = target.appendRow() * target.dimensions;
+            this.kernels.mutate(this.genomes, source, target.genomes, destination, this.mutationStep, this.dimensions, -5, 5);
+            target.statistics.add(target.genomes, destination);
+        }
+    }
 
-                if (newGenotype[j] < -5) {
-                    newGenotype[j] = -5;
-                }
-                
-                if (newGenotype[j] > 5) {
-                    newGenotype[j] = 5;
-                }
-            }
-            if(individualsForMutation[k].containsNaN()){
-                System.out.println("before");
-            }
-            individualsForMutation[k].setGenotypeDouble(newGenotype);
-            if(individualsForMutation[k].containsNaN()){
-                System.out.println("after");
+    // Copies the given rows of source (including their fitness) to the end of this population.
+    // Rows that were already evaluated in source are not evaluated again.
+    public void addIndividuals(Population source, int[] rows){
+        this.addIndividuals(source, rows, rows.length);
+    }
+
+    // Same as above for the first count entries of rows
+    void addIndividuals(Population source, int[] rows, int count){
+        if(this.size >= this.populationSize) {
+            System.out.println("Population full. Abort");
+        }
+        else {
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                int destination = this.appendRow();
+                System.arraycopy(source.genomes, row * source.dimensions, this.genomes, destination * this.dimensions, this.dimensions);
+                this.statistics.add(this.genomes, destination * this.dimensions);
+                this.fitness[destination] = source.fitness[row];
+                this.evaluated[destination] = source.evaluated[row];
             }
         }
-        return individualsForMutation;
     }
 
-    // Note: No copies are added to the new population.
-    // Beware of Individual.setEncoding for changes in #starter
     public void addIndividuals(DoubleIndividual[] individualsToAdd){
-        if(this.people.length >= this.populationSize) {
+        if(this.size >= this.populationSize) {
             System.out.println("Population full. Abort");
         }
         else {
-            int newSize = this.people.length + individualsToAdd.length;
-            DoubleIndividual[] buffer = new DoubleIndividual[newSize];
-
-            System.arraycopy(this.people, 0, buffer, 0, this.people.length);
-            System.arraycopy(individualsToAdd, 0, buffer, this.people.length, newSize-this.people.length);
-            this.people = buffer;
+            for (DoubleIndividual individual : individualsToAdd) {
+                int destination = this.appendRow();
+                System.arraycopy(individual.getGenotypeDouble(), 0, this.genomes, destination * this.dimensions, this.dimensions);
+                this.statistics.add(this.genomes, destination * this.dimensions);
+                this.fitness[destination] = individual.getFitness();
+            }
         }
     }
 
-    public void print() {
-        for (DoubleIndividual individual : this.people) {
-            System.out.print(" ");
-            individual.print();
+    // Overwrites the least fit rows with already evaluated individuals, e.g. migrants from another island
+    public void replaceWorstIndividuals(DoubleIndividual[] individuals, int count){
+        this.ensureRanking();
+        int replaced = Math.min(count, this.size);
+        for (int i = 0; i < replaced; i++) {
+            int row = this.ranking[i];
+            this.statistics.remove(this.genomes, row * this.dimensions);
+            System.arraycopy(individuals[i].getGenotypeDouble(), 0, this.genomes, row * this.dimensions, this.dimensions);
+            this.statistics.add(this.genomes, row * this.dimensions);
+            this.fitness[row] = individuals[i].getFitness();
+            this.evaluated[row] = true;
+            if (this.fitness[row] > this.highestFitness) {
+                this.highestFitness = this.fitness[row];
+            }
         }
+        this.rankingValid = false;
     }
 
-    private void createProbabilitiesBasedOnLinearRanking(){
-        sortPeopleByFitnessAscending();
-        double c = Constants.K_FOR_LIN_RANKING;
-        double meanFitness = 0;
-        for (int i = 0; i < this.people.length; i++) {
-            meanFitness += this.people[i].getFitness();
+    // Overwrites row with the evaluated genome at source[offset .. offset + dimensions)
+    void replaceRow(int row, double[] source, int offset, double fitness) {
+        this.statistics.remove(this.genomes, row * this.dimensions);
+        System.arraycopy(source, offset, this.genomes, row * this.dimensions, this.dimensions);
+        this.statistics.add(this.genomes, row * this.dimensions);
+        this.fitness[row] = fitness;
+        this.evaluated[row] = true;
+        if (this.fitness[row] > this.highestFitness) {
+            this.highestFitness = this.fitness[row];
         }
-        double sum = meanFitness;
-        meanFitness /= this.people.length;
-        for (int j = 0; j < this.people.length; j++) {
-            this.people[j].setProbabilities(((2-c)/meanFitness + 2*j*(c-1)/(meanFitness*(meanFitness-1)))/sum);
+        this.rankingValid = false;
+    }
+
+    public void print() {
+        for (int i = 0; i < this.size; i++) {
+            System.out.print(" ");
+            System.out.print("FITNESS:");
+            System.out.println(this.fitness[i]);
         }
     }
 
-    private void createProbabilitiesBasedOnExponentialRanking(){
-        sortPeopleByFitnessAscending();
-        double c = Constants.K_FOR_EXP_RANKING;
-        for (int i = 0; i < this.people.length; i++) {
-            this.people[i].setProbabilities(Math.pow(c, this.people.length-1-i)*(c-1) / (Math.pow(c, this.people.length)-1));
+    // Assigns every row its rank-based selection probability from the shared RankingTable
+    private double[] createProbabilitiesBasedOnRanking(){
+        this.ensureRanking();
+        if (this.rankingTable == null || this.rankingTable.length != this.size) {
+            this.rankingTable = RankingTable.probabilities(this.rankingType, this.size);
         }
+        double[] table = this.rankingTable;
+        for (int j = 0; j < this.size; j++) {
+            this.probabilities[this.ranking[j]] = table[j];
+        }
+        return table;
     }
 
     /*
     SELECTION ALGORITHMS
+    All of them return row indices into this population. The variants taking rows write the
+    first count entries of rows and return it, so the generation loop can reuse selectionBuffer.
      */
-    private DoubleIndividual[] selectParents(int count) {
+    int[] selectParents(int count) {
+        return this.selectParents(count, new int[count]);
+    }
+
+    int[] selectParents(int count, int[] rows) {
         switch (this.parentSelectionType){
             case RANDOM:
-                return selectRandomly(count);
+                return selectRandomly(count, rows);
             case ROULETTE_WHEEL:
-                return selectRouletteWheel(count);
+                return selectRouletteWheel(count, rows);
             case TOURNAMENT:
-                return selectTournament(count);
+                return selectTournament(count, rows);
             case FITTEST:
-                return selectTopIndividuals(count);
+                return selectTopIndividuals(count, rows);
         }
 
         return null;
     }
 
-    public DoubleIndividual[] selectRandomly(int count) {
-        DoubleIndividual[] randomIndividuals = new DoubleIndividual[count];
-        for (int k = 0; k < randomIndividuals.length; k++) {
-            randomIndividuals[k] = this.people[(int)(Math.random()*this.people.length)];
+    // Scratch array of at least count entries. Shared by all selections of this population,
+    // so its contents are only valid until the next selection.
+    int[] selectionBuffer(int count) {
+        if (this.selectedRows.length < count) {
+            this.selectedRows = new int[count];
+        }
+        return this.selectedRows;
+    }
+
+    public int[] selectRandomly(int count) {
+        return this.selectRandomly(count, new int[count]);
+    }
+
+    int[] selectRandomly(int count, int[] randomIndividuals) {
+        for (int k = 0; k < count; k++) {
+            randomIndividuals[k] = this.random.nextInt(this.size);
         }
 
         return randomIndividuals;
     }
 
-    public DoubleIndividual[] selectTopIndividuals(int count) {
-        DoubleIndividual[] fittest = new DoubleIndividual[count];
+    // Rows of the count fittest individuals, fittest first
+    public int[] selectTopIndividuals(int count) {
+        return this.selectTopIndividuals(count, new int[count]);
+    }
+
+    int[] selectTopIndividuals(int count, int[] fittest) {
+        if (!this.rankingValid) {
+            // No other operator needed the full order this generation, partial selection suffices
+            return ArrayHelper.selectTopIndices(this.fitness, this.size, count, fittest);
+        }
 
-        this.sortPeopleByFitnessAscending();
-        Collections.reverse(Arrays.asList(this.people));
         // get the N fittest people
         for (int i = 0; i < count; i++) {
-            fittest[i] = this.people[i];
+            fittest[i] = this.ranking[this.size - 1 - i];
         }
 
         return fittest;
     }
 
-    private DoubleIndividual[] selectTournament(int count){
-        //System.out.println("SELECT PARENTS BY TOURNAMENT");
+    int[] selectTournament(int count){
+        return this.selectTournament(count, new int[count]);
+    }
 
-        DoubleIndividual[] parents = new DoubleIndividual[count];
-        DoubleIndividual[] peopleCopy = ArrayHelper.copyArray(this.people);
+    int[] selectTournament(int count, int[] parents){
+        this.ensureRanking();
         for (int k = 0; k < count; k++) {
-            int indexOfHighest = -1;
-            double fitnessOfHighest = -100;
-            //Dynamic tournament size
-            //System.out.println("Tournament");
+            // The contestant with the highest rank position is the fittest one
+            int highestRank = -1;
             for(int i = 0; i < Constants.TOURNAMENT_SIZE; i++){
-                int currentIndex = (int) (Math.random()*peopleCopy.length);
-                double currentFitness = peopleCopy[currentIndex].getFitness();
-                //System.out.println(currentFitness);
-                if(currentFitness > fitnessOfHighest || indexOfHighest == -1){
-                    fitnessOfHighest = currentFitness;
-                    indexOfHighest = currentIndex;
+                int currentRank = this.random.nextInt(this.size);
+                if(currentRank > highestRank){
+                    highestRank = currentRank;
                 }
             }
-            //System.out.print("highest fitness ");
-            //System.out.println(fitnessOfHighest);
-            parents[k] = peopleCopy[indexOfHighest];
-            //parents[k].printGenotype();
-            //parents[k].print();
+            parents[k] = this.ranking[highestRank];
         }
 
         return parents;
     }
 
-    private DoubleIndividual[] selectRouletteWheel(int count) {
-        // initialize new array for parents
-        DoubleIndividual[] parents = new DoubleIndividual[count];
+    int[] selectRouletteWheel(int count) {
+        return this.selectRouletteWheel(count, new int[count]);
+    }
+
+    int[] selectRouletteWheel(int count, int[] parents) {
+        // create probabilities for rank based roulette, the table is in ascending rank order
+        double[] table = this.createProbabilitiesBasedOnRanking();
 
-        // create probabilities for rank based roulette and sort the people in descending order
-        if (this.rankingType == RankingType.LINEAR) {
-            this.createProbabilitiesBasedOnLinearRanking();
+        // prevent choosing Individuals twice: drawn ranks are removed from the wheel
+        this.wheel.reset(table, this.size);
+        for (int currentMember = 0; currentMember < count; currentMember++) {
+            parents[currentMember] = this.ranking[this.wheel.sampleAndRemove(this.random.nextDouble())];
         }
-        else {
-            this.createProbabilitiesBasedOnExponentialRanking();
-        }
-        
-        DoubleIndividual[] peopleCopy = ArrayHelper.copyArray(this.people);
-        double overallFitness = this.calculateOverallFitness();
-        int currentMember = 0;
-        double r;
-        int k;
-        while (currentMember < count){
-            r = Math.random();
-            k = 0;
-            double cumulativeProb = 0;
-            while(cumulativeProb < r && k < peopleCopy.length){
-                //new rank based probabilities
-                double personProbability = peopleCopy[k].getProbabilities();
-
-                //old fitness based probabilities
-                //double personProbability = peopleCopy[k].getFitness() / overallFitness;
-
-                cumulativeProb += personProbability;
-                k++;
+
+        return parents;
+    }
+
+    void recombine(int[] parents, Population target) {
+        this.recombine(parents, parents.length, target);
+    }
+
+    // Mates the first count entries of parents
+    void recombine(int[] parents, int count, Population target) {
+        //TODO which parents mate with each other? neighborhood relation on sorted or randomly shuffled array?
+        ArrayHelper.shuffleArray(parents, count, this.random);
+        for (int k = 0; k < count - 1; k+=2) {
+            //this.recombineIndividualsByWholeArithmetic(parents[k], parents[k + 1], target);
+            this.recombineIndividualBySwappingTails(parents[k], parents[k + 1], target);
+        }
+    }
+
+    void recombineIndividualsByWholeArithmetic(int firstParent, int secondParent, Population target) {
+        //average between two parents by random probabilities x and 1-x. Use same probability for all dimensions
+        double p_x = this.random.nextDouble();
+
+        int first = firstParent * this.dimensions;
+        int second = secondParent * this.dimensions;
+        int firstChild = target.appendRow() * target.dimensions;
+        int secondChild = target.appendRow() * target.dimensions;
+
+        // p_x for the first parent, 1 - p_x for the second one
+        this.kernels.blend(this.genomes, first, second, target.genomes, firstChild, secondChild, this.dimensions, p_x);
+        target.statistics.add(target.genomes, firstChild);
+        target.statistics.add(target.genomes, secondChild);
+    }
+
+    void recombineIndividualBySwappingTails(int firstParent, int secondParent, Population target) {
+        // Between 1 and dimensions - 3, i.e. [1, 7] for the 10 contest dimensions
+        int swappingPosition = this.random.nextInt(Math.max(1, this.dimensions - 3)) + 1;
+
+        int first = firstParent * this.dimensions;
+        int second = secondParent * this.dimensions;
+        int firstChild = target.appendRow() * target.dimensions;
+        int secondChild = target.appendRow() * target.dimensions;
+
+        // Heads stay, tails are swapped
+        System.arraycopy(this.genomes, first, target.genomes, firstChild, swappingPosition);
+        System.arraycopy(this.genomes, second, target.genomes, secondChild, swappingPosition);
+        System.arraycopy(this.genomes, second + swappingPosition, target.genomes, firstChild + swappingPosition, this.dimensions - swappingPosition);
+        System.arraycopy(this.genomes, first + swappingPosition, target.genomes, secondChild + swappingPosition, this.dimensions - swappingPosition);
+        target.statistics.add(target.genomes, firstChild);
+        target.statistics.add(target.genomes, secondChild);
+    }
+
+    // Evaluates every row whose genome changed, rows that kept their genome keep their fitness
+    public void recalculateFitness(BatchEvaluator evaluator) {
+        this.recalculateFitness(evaluator, null);
+    }
+
+    // Same as above, every newly evaluated row is also added to the surrogate archive if given
+    public void recalculateFitness(BatchEvaluator evaluator, SurrogateModel archive) {
+        int pending = this.countPendingRows();
+        if (pending == this.size) {
+            evaluator.evaluate(this.genomes, this.size, this.dimensions, this.fitness);
+        }
+        else if (pending > 0) {
+            for (int i = 0; i < pending; i++) {
+                System.arraycopy(this.genomes, this.pendingRows[i] * this.dimensions, this.pendingGenomes, i * this.dimensions, this.dimensions);
+            }
+            evaluator.evaluate(this.pendingGenomes, pending, this.dimensions, this.pendingFitness);
+            for (int i = 0; i < pending; i++) {
+                this.fitness[this.pendingRows[i]] = this.pendingFitness[i];
             }
+        }
 
-            if (k > 0) {
-                k--;
+        this.rankingValid = false;
+        double highest = Double.NEGATIVE_INFINITY;
+        for (int row = 0; row < this.size; row++) {
+            if (Double.isNaN(this.fitness[row])) {
+                this.fitness[row] = -42;
+            }
+            this.evaluated[row] = true;
+            if(this.fitness[row] > highest){
+                highest = this.fitness[row];
             }
+        }
+        this.highestFitness = highest;
 
-            // parent at position k was found and is added to final array
-            parents[currentMember] = peopleCopy[k];
+        if (archive != null) {
+            for (int i = 0; i < pending; i++) {
+                int row = this.pendingRows[i];
+                archive.add(this.genomes, row * this.dimensions, this.fitness[row]);
+            }
+        }
+    }
 
-            // prevent choosing Individuals twice
-            overallFitness -= peopleCopy[k].getFitness();
-            peopleCopy = ArrayHelper.removeElementFromArray(peopleCopy, k);
-            currentMember++;
+    // Surrogate pre-screening: keeps the keep unevaluated rows with the best predicted fitness
+    // and drops the other unevaluated rows, so only the most promising offspring reach the
+    // real evaluation. Evaluated rows are kept, the row order is preserved.
+    public void screenOffspring(SurrogateModel model, int keep) {
+        int pending = this.countPendingRows();
+        if (pending <= keep) {
+            return;
         }
-        //System.out.print("Roulette-While took: ");
-        //System.out.print((System.nanoTime()-time1));
-        //System.out.println("nanos.");
 
-        return parents;
+        for (int i = 0; i < pending; i++) {
+            this.pendingFitness[i] = model.predict(this.genomes, this.pendingRows[i] * this.dimensions);
+            if (model.getNearestDistance() == 0) {
+                // A copy of an archived genome (e.g. tails swapped between clones) teaches nothing new,
+                // preferring them would fill the population with clones of the best individual
+                this.pendingFitness[i] = Double.NEGATIVE_INFINITY;
+            }
+        }
+        int[] kept = ArrayHelper.selectTopIndices(this.pendingFitness, pending, keep, this.selectionBuffer(keep));
+        // Flags the survivors in place, their predictions are not needed any more
+        for (int i = 0; i < keep; i++) {
+            this.pendingFitness[kept[i]] = Double.POSITIVE_INFINITY;
+        }
+
+        int written = 0;
+        int next = 0;
+        for (int row = 0; row < this.size; row++) {
+            if (!this.evaluated[row] && this.pendingFitness[next++] != Double.POSITIVE_INFINITY) {
+                this.statistics.remove(this.genomes, row * this.dimensions);
+                continue;
+            }
+            if (written != row) {
+                System.arraycopy(this.genomes, row * this.dimensions, this.genomes, written * this.dimensions, this.dimensions);
+                this.fitness[written] = this.fitness[row];
+                this.evaluated[written] = this.evaluated[row];
+            }
+            written++;
+        }
+        this.size = written;
+        this.rankingValid = false;
     }
 
-    private DoubleIndividual[] recombine(DoubleIndividual[] parents) {
-        //TODO which parents mate with each other? neighborhood relation on sorted or randomly shuffled array?
-        ArrayHelper.shuffleArray(parents);
-        DoubleIndividual[] children = new DoubleIndividual[parents.length];
-        for (int k = 0; k < parents.length - 1; k+=2) {
-            //DoubleIndividual[] newChildren = DoubleIndividual.recombineIndividualsByWholeArithmetic((DoubleIndividual) parents[k], (DoubleIndividual) parents[k + 1]);
-            DoubleIndividual[] newChildren = DoubleIndividual.recombineIndividualBySwappingTails(parents[k], parents[k + 1]);
-            children[k] = newChildren[0];
-            children[k+1] = newChildren[1];
+    // Drops the unevaluated rows after the first keep ones, e.g. to fit the last generation into
+    // what is left of the budget. Evaluated rows are kept, the row order is preserved.
+    public void truncatePending(int keep) {
+        int written = 0;
+        int pending = 0;
+        for (int row = 0; row < this.size; row++) {
+            if (!this.evaluated[row] && pending++ >= keep) {
+                this.statistics.remove(this.genomes, row * this.dimensions);
+                continue;
+            }
+            if (written != row) {
+                System.arraycopy(this.genomes, row * this.dimensions, this.genomes, written * this.dimensions, this.dimensions);
+                this.fitness[written] = this.fitness[row];
+                this.evaluated[written] = this.evaluated[row];
+            }
+            written++;
         }
+        this.size = written;
+        this.rankingValid = false;
+    }
 
-        return children;
+    // Evaluations the next recalculateFitness will ask for at most
+    public int getPendingEvaluations() {
+        int pending = 0;
+        for (int row = 0; row < this.size; row++) {
+            if (!this.evaluated[row]) {
+                pending++;
+            }
+        }
+        return pending;
     }
 
-    public void recalculateFitness() {
-        double highest = -1000;
-        double current;
-        for (DoubleIndividual individual : this.people) {
-            current = individual.calculateFitness();
-            if(current > highest){
-                highest = current;
+    private int countPendingRows() {
+        if (this.pendingRows == null || this.pendingRows.length < this.size) {
+            this.pendingRows = new int[this.size];
+            this.pendingGenomes = new double[this.size * this.dimensions];
+            this.pendingFitness = new double[this.size];
+        }
+
+        int pending = 0;
+        for (int row = 0; row < this.size; row++) {
+            if (!this.evaluated[row]) {
+                this.pendingRows[pending++] = row;
             }
         }
-        this.highestFitness = highest;
+        return pending;
     }
 
     // Calculate the sum over all individuals' fitnesses
     private double calculateOverallFitness(){
         double result = 0;
-        for (DoubleIndividual individual : this.people) {
-            result += individual.getFitness();
+        for (int i = 0; i < this.size; i++) {
+            result += this.fitness[i];
         }
 
         return result;
     }
 
-    private void sortPeopleByFitnessAscending(){
-       Arrays.sort(this.people, Comparator.comparingDouble(DoubleIndividual::getFitness));
+    // Forgets the rank index, so the next selection ranks again (used by OperatorBenchmark)
+    void invalidateRanking(){
+        this.rankingValid = false;
+    }
+
+    private void ensureRanking(){
+        if (this.rankingValid) {
+            return;
+        }
+        for (int i = 0; i < this.size; i++) {
+            this.ranking[i] = i;
+        }
+        ArrayHelper.sortIndicesByKey(this.ranking, this.size, this.fitness, this.rankingBuffer);
+        this.rankingValid = true;
     }
-    //private void sortPeopleByFitnessDescending(){
-    //    Arrays.sort(this.people, Comparator.comparingDouble(DoubleIndividual::getFitness).reversed());
-    //}
 
     public double getHighestFitness(){
         return this.highestFitness;
     }
 
     public double getAverage(){
-        return calculateOverallFitness() / this.people.length;
+        return calculateOverallFitness() / this.size;
     }
 
     public double getStandardDeviation(){
         double average = getAverage();
 
         double numerator = 0.0;
-        for (DoubleIndividual individual : this.people) {
-            numerator += Math.pow((individual.getFitness() - average), 2);
+        for (int i = 0; i < this.size; i++) {
+            double deviation = this.fitness[i] - average;
+            numerator += deviation * deviation;
         }
 
-        double result = Math.sqrt(numerator / (this.people.length - 1));
+        double result = Math.sqrt(numerator / (this.size - 1));
         return result;
     }
-}
\ No newline at end of file
+}
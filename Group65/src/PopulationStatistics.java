@@ -0,0 +1,182 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Per-dimension mean and (co)variance of the genomes in a population, kept up to date with
+ * Welford updates as rows enter and leave it, so nobody has to rescan the genome matrix.
+ * Snapshots of mean and variance are O(dimensions); the covariance (co-moment matrix,
+ * O(dimensions^2) per update) is only tracked when asked for in the constructor.
+ */
+public class PopulationStatistics {
+    private final int dimensions;
+    private final boolean trackCovariance;
+    private int count;
+    private final double[] mean;
+    // Sum of squared deviations from the mean per dimension
+    private final double[] m2;
+    // Co-moments, row-major dimensions x dimensions, null if not tracked
+    private final double[] comoment;
+    // Deviations of the genome being added or removed from the old and the new mean
+    private final double[] before;
+    private final double[] after;
+
+    public PopulationStatistics(int dimensions, boolean trackCovariance) {
+        this.dimensions = dimensions;
+        this.trackCovariance = trackCovariance;
+        this.mean = new double[dimensions];
+        this.m2 = new double[dimensions];
+        this.comoment = trackCovariance ? new double[dimensions * dimensions] : null;
+        this.before = new double[dimensions];
+        this.after = new double[dimensions];
+    }
+
+    public boolean isTrackingCovariance() {
+        return this.trackCovariance;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public void clear() {
+        this.count = 0;
+        Arrays.fill(this.mean, 0);
+        Arrays.fill(this.m2, 0);
+        if (this.comoment != null) {
+            Arrays.fill(this.comoment, 0);
+        }
+    }
+
+    // Adds the genome at genomes[offset .. offset + dimensions)
+    public void add(double[] genomes, int offset) {
+        this.count++;
+        for (int j = 0; j < this.dimensions; j++) {
+            double x = genomes[offset + j];
+            this.before[j] = x - this.mean[j];
+            this.mean[j] += this.before[j] / this.count;
+            this.after[j] = x - this.mean[j];
+            this.m2[j] += this.before[j] * this.after[j];
+        }
+        if (this.comoment != null) {
+            // C += (x - old mean) (x - new mean)^T
+            this.updateComoment(1);
+        }
+    }
+
+    // Removes a genome that was added before, the exact inverse of add
+    public void remove(double[] genomes, int offset) {
+        if (this.count <= 1) {
+            this.clear();
+            return;
+        }
+
+        this.count--;
+        for (int j = 0; j < this.dimensions; j++) {
+            double x = genomes[offset + j];
+            // Undoes add: after is the deviation from the mean that still includes x,
+            // before the deviation from the mean without it
+            this.after[j] = x - this.mean[j];
+            this.mean[j] -= this.after[j] / this.count;
+            this.before[j] = x - this.mean[j];
+            this.m2[j] -= this.before[j] * this.after[j];
+            if (this.m2[j] < 0) {
+                // Rounding, a variance cannot be negative
+                this.m2[j] = 0;
+            }
+        }
+        if (this.comoment != null) {
+            this.updateComoment(-1);
+        }
+    }
+
+    private void updateComoment(double sign) {
+        for (int j = 0; j < this.dimensions; j++) {
+            int row = j * this.dimensions;
+            double scaled = sign * this.before[j];
+            for (int k = 0; k < this.dimensions; k++) {
+                this.comoment[row + k] += scaled * this.after[k];
+            }
+        }
+    }
+
+    // Replaces the statistics by those of the first rows of the matrix, two passes through kernels
+    public void rebuild(double[] genomes, int rows, VariationKernels kernels) {
+        this.clear();
+        if (rows == 0) {
+            return;
+        }
+        this.count = rows;
+        kernels.sumRows(genomes, rows, this.dimensions, this.mean);
+        for (int j = 0; j < this.dimensions; j++) {
+            this.mean[j] /= rows;
+        }
+        kernels.sumSquaredDeviations(genomes, rows, this.dimensions, this.mean, this.m2);
+
+        if (this.comoment != null) {
+            int offset = 0;
+            for (int i = 0; i < rows; i++) {
+                for (int j = 0; j < this.dimensions; j++) {
+                    double deviation = genomes[offset + j] - this.mean[j];
+                    int row = j * this.dimensions;
+                    for (int k = 0; k < this.dimensions; k++) {
+                        this.comoment[row + k] += deviation * (genomes[offset + k] - this.mean[k]);
+                    }
+                }
+                offset += this.dimensions;
+            }
+        }
+    }
+
+    // Bytes written by writeTo
+    public int encodedSize() {
+        return 2 * Integer.BYTES + 1 + (2 * this.dimensions + (this.comoment != null ? this.comoment.length : 0)) * Double.BYTES;
+    }
+
+    // The exact running sums, a rebuild from the rows would round differently
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.dimensions);
+        buffer.put((byte) (this.trackCovariance ? 1 : 0));
+        buffer.putInt(this.count);
+        Checkpoint.putDoubles(buffer, this.mean, this.dimensions);
+        Checkpoint.putDoubles(buffer, this.m2, this.dimensions);
+        if (this.comoment != null) {
+            Checkpoint.putDoubles(buffer, this.comoment, this.comoment.length);
+        }
+    }
+
+    public static PopulationStatistics readFrom(ByteBuffer buffer) {
+        int dimensions = buffer.getInt();
+        PopulationStatistics statistics = new PopulationStatistics(dimensions, buffer.get() != 0);
+        statistics.count = buffer.getInt();
+        Checkpoint.getDoubles(buffer, statistics.mean, dimensions);
+        Checkpoint.getDoubles(buffer, statistics.m2, dimensions);
+        if (statistics.comoment != null) {
+            Checkpoint.getDoubles(buffer, statistics.comoment, statistics.comoment.length);
+        }
+        return statistics;
+    }
+
+    public double[] getMean(double[] into) {
+        System.arraycopy(this.mean, 0, into, 0, this.dimensions);
+        return into;
+    }
+
+    // Sample variance (divided by count - 1) per dimension, 0 with fewer than two rows
+    public double[] getVariance(double[] into) {
+        for (int j = 0; j < this.dimensions; j++) {
+            into[j] = this.count > 1 ? this.m2[j] / (this.count - 1) : 0;
+        }
+        return into;
+    }
+
+    // Sample covariance matrix, row-major into dimensions * dimensions entries
+    public double[] getCovariance(double[] into) {
+        if (this.comoment == null) {
+            throw new IllegalStateException("Covariance is not tracked");
+        }
+        for (int i = 0; i < this.comoment.length; i++) {
+            into[i] = this.count > 1 ? this.comoment[i] / (this.count - 1) : 0;
+        }
+        return into;
+    }
+}
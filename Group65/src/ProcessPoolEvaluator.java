@@ -0,0 +1,179 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BatchEvaluator that farms a generation out to long-lived EvaluationWorker processes on this
+ * machine, connected over loopback sockets. The native BBOB library keeps global state, so
+ * separate processes are the only way to evaluate on several cores at once. Every worker gets
+ * one contiguous block of rows as a single message (see EvaluationChannel); all requests are
+ * sent before the first reply is read, so the workers run concurrently without any threads
+ * on this side. The rows come back in their original order, the same as with one worker.
+ *
+ * The workers inherit the class path and java.library.path of this JVM, their stdout (BBOB
+ * progress output) is discarded and their stderr goes to ours.
+ */
+public class ProcessPoolEvaluator implements BatchEvaluator {
+    private static final int CONNECT_TIMEOUT_MILLIS = 30000;
+
+    private final Process[] processes;
+    private final EvaluationChannel[] channels;
+    private final int dimensions;
+    private final double ftarget;
+
+    // Starts workers EvaluationWorker processes with workerArguments (e.g. -function=2) and waits
+    // until all of them have connected
+    public ProcessPoolEvaluator(int workers, List<String> workerArguments) throws IOException {
+        if (workers < 1) {
+            throw new IllegalArgumentException("At least one evaluation worker is required, got " + workers);
+        }
+
+        this.processes = new Process[workers];
+        this.channels = new EvaluationChannel[workers];
+        int dimensions = -1;
+        double ftarget = Double.NaN;
+
+        try (ServerSocket server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            server.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int i = 0; i < workers; i++) {
+                List<String> command = new ArrayList<>();
+                command.add(java);
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add("-Djava.library.path=" + System.getProperty("java.library.path"));
+                command.add("EvaluationWorker");
+                command.add("-connect=" + server.getInetAddress().getHostAddress() + ":" + server.getLocalPort());
+                command.add("-worker=" + i);
+                command.addAll(workerArguments);
+                this.processes[i] = new ProcessBuilder(command)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            }
+
+            // Workers connect in any order, the hello tells which one it is
+            for (int connected = 0; connected < workers; connected++) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                }
+                catch (SocketTimeoutException e) {
+                    throw new IOException("Only " + connected + " of " + workers + " evaluation workers connected", e);
+                }
+                EvaluationChannel channel = new EvaluationChannel(socket);
+                int worker = channel.readHello();
+                int workerDimensions = channel.readInt();
+                double workerTarget = channel.readDouble();
+                if (worker < 0 || worker >= workers || this.channels[worker] != null) {
+                    channel.close();
+                    throw new IOException("Unexpected evaluation worker " + worker);
+                }
+                if (dimensions != -1 && workerDimensions != dimensions) {
+                    channel.close();
+                    throw new IOException("Worker " + worker + " evaluates " + workerDimensions + " dimensions, not " + dimensions);
+                }
+                dimensions = workerDimensions;
+                ftarget = workerTarget;
+                this.channels[worker] = channel;
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            this.shutdown();
+            throw e;
+        }
+
+        this.dimensions = dimensions;
+        this.ftarget = ftarget;
+    }
+
+    public int getWorkers() {
+        return this.processes.length;
+    }
+
+    public int getDimensions() {
+        return this.dimensions;
+    }
+
+    // Fitness value to reach, as reported by the workers' BBOB backend (already negated, like
+    // the fitness values)
+    public double getTargetFitness() {
+        return -this.ftarget;
+    }
+
+    public void evaluate(double[] genomes, int rows, int dimensions, double[] fitness) {
+        if (dimensions != this.dimensions) {
+            throw new IllegalArgumentException("The workers evaluate " + this.dimensions + " dimensions, got " + dimensions);
+        }
+        int workers = Math.min(this.channels.length, rows);
+        try {
+            for (int w = 0; w < workers; w++) {
+                int from = (int) ((long) rows * w / workers);
+                int to = (int) ((long) rows * (w + 1) / workers);
+                EvaluationChannel channel = this.channels[w];
+                channel.writeInt(EvaluationChannel.EVALUATE);
+                channel.writeInt(to - from);
+                channel.writeInt(dimensions);
+                channel.writeDoubles(genomes, from * dimensions, (to - from) * dimensions);
+                channel.flush();
+            }
+
+            IllegalStateException failure = null;
+            for (int w = 0; w < workers; w++) {
+                int from = (int) ((long) rows * w / workers);
+                EvaluationChannel channel = this.channels[w];
+                // Every reply is read, even after a failure, so the channels stay in step
+                if (channel.readInt() == EvaluationChannel.FAILED) {
+                    String message = channel.readUTF();
+                    if (failure == null) {
+                        failure = new IllegalStateException("Evaluation worker " + w + " failed: " + message);
+                    }
+                    continue;
+                }
+                channel.readDoubles(fitness, from, channel.readInt());
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Lost the connection to an evaluation worker", e);
+        }
+    }
+
+    // Asks every worker to exit (so BBOB can close its data files) and waits a moment for them
+    public void shutdown() {
+        for (EvaluationChannel channel : this.channels) {
+            if (channel != null) {
+                try {
+                    channel.writeInt(EvaluationChannel.CLOSE);
+                    channel.flush();
+                }
+                catch (IOException e) {
+                    // The worker is gone already
+                }
+                channel.close();
+            }
+        }
+        for (Process process : this.processes) {
+            if (process == null) {
+                continue;
+            }
+            try {
+                if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                }
+            }
+            catch (InterruptedException e) {
+                process.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
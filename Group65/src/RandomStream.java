@@ -0,0 +1,137 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Central source of randomness for the engine. One root stream is seeded through
+ * player65.setSeed; every run, worker or task splits off its own stream from it and uses that
+ * exclusively, so there is no shared seed to contend on and runs are reproducible for a given
+ * seed. A single stream is not thread-safe.
+ *
+ * The generator is SplitMix64 with the exact algorithm of java.util.SplittableRandom, so seeded
+ * runs give the same numbers as before. It is implemented here because SplittableRandom does
+ * not expose its state, and checkpoints have to save and restore it.
+ */
+public final class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private static RandomStream root = new RandomStream(mix64(System.currentTimeMillis()) ^ mix64(System.nanoTime()), GOLDEN_GAMMA);
+
+    public static synchronized void setSeed(long seed) {
+        root = new RandomStream(seed, GOLDEN_GAMMA);
+    }
+
+    // New independent stream split off the seeded root
+    public static synchronized RandomStream newStream() {
+        return root.split();
+    }
+
+    // The stream a run gets after setSeed(seed), without touching the shared root
+    public static RandomStream seeded(long seed) {
+        return new RandomStream(seed, GOLDEN_GAMMA).split();
+    }
+
+    private long seed;
+    private long gamma;
+    private double nextGaussian;
+    private boolean hasNextGaussian;
+
+    private RandomStream(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    public RandomStream split() {
+        return new RandomStream(this.nextLong(), mixGamma(this.nextSeed()));
+    }
+
+    public long nextLong() {
+        return mix64(this.nextSeed());
+    }
+
+    // Uniform in [0, 1)
+    public double nextDouble() {
+        return (this.nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    // Uniform in [0, bound), rejection sampling without modulo bias
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive, got " + bound);
+        }
+        int r = mix32(this.nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            return r & m;
+        }
+        for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(this.nextSeed()) >>> 1) {
+            // Retry values from the incomplete last interval
+        }
+        return r;
+    }
+
+    // Standard normal, Marsaglia polar method (same as java.util.Random)
+    public double nextGaussian() {
+        if (this.hasNextGaussian) {
+            this.hasNextGaussian = false;
+            return this.nextGaussian;
+        }
+
+        double v1;
+        double v2;
+        double s;
+        do {
+            v1 = 2 * this.nextDouble() - 1;
+            v2 = 2 * this.nextDouble() - 1;
+            s = v1 * v1 + v2 * v2;
+        } while (s >= 1 || s == 0);
+
+        double multiplier = StrictMath.sqrt(-2 * StrictMath.log(s) / s);
+        this.nextGaussian = v2 * multiplier;
+        this.hasNextGaussian = true;
+        return v1 * multiplier;
+    }
+
+    // Bytes written by writeTo
+    public static int encodedSize() {
+        return 3 * Long.BYTES + 1;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putLong(this.seed);
+        buffer.putLong(this.gamma);
+        buffer.putDouble(this.nextGaussian);
+        buffer.put((byte) (this.hasNextGaussian ? 1 : 0));
+    }
+
+    // Continues exactly where the stream that wrote the state was
+    public void readFrom(ByteBuffer buffer) {
+        this.seed = buffer.getLong();
+        this.gamma = buffer.getLong();
+        this.nextGaussian = buffer.getDouble();
+        this.hasNextGaussian = buffer.get() != 0;
+    }
+
+    private long nextSeed() {
+        return this.seed += this.gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+        return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        // Gammas with too few bit transitions make poor streams
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
+}
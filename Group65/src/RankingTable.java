@@ -0,0 +1,71 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rank-based selection probabilities, indexed by rank (0 = least fit). They only depend on the
+ * ranking type, the population size and the ranking constant, so every table is computed once
+ * and shared. Callers must not modify the returned arrays.
+ */
+public final class RankingTable {
+    private static final ConcurrentHashMap<Key, double[]> TABLES = new ConcurrentHashMap<>();
+
+    private RankingTable() {
+    }
+
+    public static double[] probabilities(RankingType rankingType, int populationSize) {
+        double c = rankingType == RankingType.LINEAR ? Constants.K_FOR_LIN_RANKING : Constants.K_FOR_EXP_RANKING;
+        return TABLES.computeIfAbsent(new Key(rankingType, populationSize, c), RankingTable::create);
+    }
+
+    private static double[] create(Key key) {
+        int mu = key.populationSize;
+        double c = key.c;
+        double[] table = new double[mu];
+        if (key.rankingType == RankingType.LINEAR) {
+            // Linear ranking with selection pressure c in [1, 2]
+            for (int i = 0; i < mu; i++) {
+                table[i] = mu == 1 ? 1 : (2 - c) / mu + 2 * i * (c - 1) / ((double) mu * (mu - 1));
+            }
+        }
+        else {
+            // Exponential ranking with base c, each power computed once
+            double power = 1;
+            for (int i = mu - 1; i >= 0; i--) {
+                table[i] = power;
+                power *= c;
+            }
+            double normalization = (c - 1) / (power - 1);
+            for (int i = 0; i < mu; i++) {
+                table[i] *= normalization;
+            }
+        }
+        return table;
+    }
+
+    private static final class Key {
+        private final RankingType rankingType;
+        private final int populationSize;
+        private final double c;
+
+        Key(RankingType rankingType, int populationSize, double c) {
+            this.rankingType = rankingType;
+            this.populationSize = populationSize;
+            this.c = c;
+        }
+
+        @Override
+        public int hashCode() {
+            return (this.rankingType.hashCode() * 31 + this.populationSize) * 31 + Double.hashCode(this.c);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) other;
+            return this.rankingType == key.rankingType
+                && this.populationSize == key.populationSize
+                && Double.compare(this.c, key.c) == 0;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * Outcome of one evolutionary run, so callers get numbers instead of parsing stdout.
+ */
+public class RunResult {
+    public final double maxFitness;
+    public final int maxFitnessCycle;
+    public final int cycles;
+    public final int evaluations;
+    // Evaluations and time until the target fitness was reached, -1 if it was not
+    public final int evaluationsToTarget;
+    public final long nanosToTarget;
+
+    public RunResult(double maxFitness, int maxFitnessCycle, int cycles, int evaluations) {
+        this(maxFitness, maxFitnessCycle, cycles, evaluations, -1, -1);
+    }
+
+    public RunResult(double maxFitness, int maxFitnessCycle, int cycles, int evaluations, int evaluationsToTarget, long nanosToTarget) {
+        this.maxFitness = maxFitness;
+        this.maxFitnessCycle = maxFitnessCycle;
+        this.cycles = cycles;
+        this.evaluations = evaluations;
+        this.evaluationsToTarget = evaluationsToTarget;
+        this.nanosToTarget = nanosToTarget;
+    }
+
+    // Same result with the target statistics of the run's budget
+    public RunResult withTarget(EvaluationBudget budget) {
+        return new RunResult(this.maxFitness, this.maxFitnessCycle, this.cycles, this.evaluations,
+            budget.getEvaluationsToTarget(), budget.getNanosToTarget());
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Plain Java VariationKernels, the reference the Vector API backend has to match.
+ */
+public class ScalarVariationKernels implements VariationKernels {
+    public void blend(double[] genomes, int first, int second, double[] target, int firstChild, int secondChild, int dimensions, double weight) {
+        double other = 1 - weight;
+        for (int i = 0; i < dimensions; i++) {
+            target[firstChild + i] = weight * genomes[first + i] + other * genomes[second + i];
+            target[secondChild + i] = weight * genomes[second + i] + other * genomes[first + i];
+        }
+    }
+
+    public void mutate(double[] genomes, int source, double[] target, int destination, double[] step, int dimensions, double lower, double upper) {
+        for (int j = 0; j < dimensions; j++) {
+            double gene = genomes[source + j] + step[j];
+
+            if (gene < lower) {
+                gene = lower;
+            }
+
+            if (gene > upper) {
+                gene = upper;
+            }
+            target[destination + j] = gene;
+        }
+    }
+
+    public void sumRows(double[] genomes, int rows, int dimensions, double[] sums) {
+        int offset = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < dimensions; j++) {
+                sums[j] += genomes[offset + j];
+            }
+            offset += dimensions;
+        }
+    }
+
+    public void sumSquaredDeviations(double[] genomes, int rows, int dimensions, double[] mean, double[] sums) {
+        int offset = 0;
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < dimensions; j++) {
+                double deviation = genomes[offset + j] - mean[j];
+                sums[j] += deviation * deviation;
+            }
+            offset += dimensions;
+        }
+    }
+}
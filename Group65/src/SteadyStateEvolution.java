@@ -0,0 +1,280 @@
+/**
+ * Steady-state alternative to the generational loop of Evolution.run: every step breeds a few
+ * offspring (config.steadyStateOffspring), evaluates them and lets each one replace the least
+ * fit individual if it is fitter. A FitnessIndex keeps the population ranked, so parent
+ * selection, finding the worst row and re-ranking after a replacement are O(log n) and the
+ * cost per evaluation does not grow with the population size. New offspring can be chosen as
+ * parents by the very next step.
+ *
+ * Variation uses the same operators as the generational engine: a step recombines two parents
+ * by swapping tails with probability recombinationSize / (recombinationSize + mutationSize),
+ * otherwise it mutates one parent.
+ *
+ * With -DevaluationQueue=n the offspring are evaluated asynchronously (runAsync): up to n of
+ * them are in an EvaluationPipeline at a time, and each one is folded into the population as
+ * soon as its evaluation finishes, while the workers keep evaluating the others. Folding
+ * happens in completion order, so with several workers such runs are not reproducible.
+ */
+public class SteadyStateEvolution {
+    private final Population tribe;
+    private final Population offspring;
+    private final FitnessIndex index;
+    private final ParentSelectionType parentSelectionType;
+    private final RandomStream random;
+    private final int offspringCount;
+    private final double recombinationShare;
+    // Cumulative rank-based selection probabilities, rank 0 is the least fit
+    private final double[] cumulativeRanking;
+    private final int[] parents = new int[2];
+    // Offspring of the last breed call not yet handed to the pipeline (runAsync)
+    private int nursery;
+
+    public SteadyStateEvolution(EvolutionConfig config, RandomStream random) {
+        this.random = random;
+        this.parentSelectionType = config.parentSelectionType;
+        this.offspringCount = Math.max(1, config.steadyStateOffspring);
+        int variation = config.recombinationSize + config.mutationSize;
+        this.recombinationShare = variation > 0 ? (double) config.recombinationSize / variation : 0;
+
+        this.tribe = new Population(config.parentSelectionType, config.populationSize, config.rankingType, random,
+            config.dimensions);
+        this.tribe.setKernels(VariationKernels.load(config.vectorKernels));
+        this.offspring = new Population(this.tribe);
+        this.index = new FitnessIndex(this.tribe.getSize());
+
+        double[] table = RankingTable.probabilities(config.rankingType, this.tribe.getSize());
+        this.cumulativeRanking = new double[table.length];
+        double sum = 0;
+        for (int i = 0; i < table.length; i++) {
+            sum += table[i];
+            this.cumulativeRanking[i] = sum;
+        }
+    }
+
+    static RunResult run(EvolutionConfig config, BatchEvaluator evaluator, EvaluationBudget budget, RandomStream random) {
+        SteadyStateEvolution engine = new SteadyStateEvolution(config, random);
+        int populationSize = engine.tribe.getSize();
+        if (populationSize == 0 || engine.tribe.getPendingEvaluations() > budget.getRemaining()) {
+            return new RunResult(0.0, 0, 0, budget.getUsed());
+        }
+
+        TraceSink trace = config.printProgress ? AsyncTraceSink.open(config) : TraceSink.NULL;
+        double maxFitness = 0.0;
+        int maxFitnessCycle = 0;
+        // A cycle is populationSize evaluations, so traces compare with the generational engine
+        int cycle = 0;
+
+        try {
+            engine.initialize(evaluator);
+            maxFitness = engine.tribe.getHighestFitness();
+            trace.record(cycle, budget.getUsed(), maxFitness, maxFitness);
+
+            // Steps answered entirely from a fitness cache spend nothing, hence the step bound
+            for (int step = 0; step < budget.getLimit() && budget.getRemaining() > 0 && !budget.shouldStop(); step++) {
+                try {
+                    engine.step(evaluator, Math.min(engine.offspringCount, budget.getRemaining()));
+                }
+                catch (EvaluationBudget.ExhaustedException e) {
+                    break;
+                }
+
+                double currentHighestFitness = engine.tribe.getHighestFitness();
+                if (currentHighestFitness > maxFitness) {
+                    maxFitness = currentHighestFitness;
+                    maxFitnessCycle = budget.getUsed() / populationSize;
+                }
+                if (budget.getUsed() / populationSize > cycle) {
+                    cycle = budget.getUsed() / populationSize;
+                    trace.record(cycle, budget.getUsed(), maxFitness, currentHighestFitness);
+                }
+            }
+        }
+        finally {
+            trace.close();
+        }
+
+        if (config.printProgress) {
+            System.out.println(maxFitnessCycle);
+        }
+        return new RunResult(maxFitness, maxFitnessCycle, cycle + 1, budget.getUsed());
+    }
+
+    // Same as run, but offspring are evaluated on config.evaluationThreads pipeline workers that
+    // each create their own FitnessFunction. Only the initial population goes through evaluator.
+    static RunResult runAsync(
+        EvolutionConfig config,
+        BatchEvaluator evaluator,
+        FitnessFunctionFactory factory,
+        EvaluationBudget budget,
+        RandomStream random) {
+
+        SteadyStateEvolution engine = new SteadyStateEvolution(config, random);
+        int populationSize = engine.tribe.getSize();
+        if (populationSize == 0 || engine.tribe.getPendingEvaluations() > budget.getRemaining()) {
+            return new RunResult(0.0, 0, 0, budget.getUsed());
+        }
+
+        TraceSink trace = config.printProgress ? AsyncTraceSink.open(config) : TraceSink.NULL;
+        EvaluationPipeline pipeline = new EvaluationPipeline(factory, config.evaluationThreads, config.evaluationQueue,
+            config.dimensions);
+        double maxFitness = 0.0;
+        int maxFitnessCycle = 0;
+        int cycle = 0;
+
+        try {
+            engine.initialize(evaluator);
+            maxFitness = engine.tribe.getHighestFitness();
+            // The budget counts reservations, this counts the evaluations that came back
+            int evaluated = budget.getUsed();
+            trace.record(cycle, evaluated, maxFitness, maxFitness);
+
+            while (true) {
+                // Refill the pipeline, one reserved evaluation per offspring. After an early stop
+                // the evaluations in flight are still folded in, they are paid for.
+                EvaluationPipeline.Job job;
+                while ((job = pipeline.acquire()) != null) {
+                    if (budget.shouldStop() || !budget.tryReserve(1)) {
+                        pipeline.release(job);
+                        break;
+                    }
+                    engine.nextChild(job.genome);
+                    pipeline.submit(job);
+                }
+
+                job = pipeline.take();
+                if (job == null) {
+                    // Budget spent and every evaluation folded in
+                    break;
+                }
+                engine.fold(job.genome, 0, job.getFitness());
+                pipeline.release(job);
+                evaluated++;
+                // The pipeline bypasses the BudgetedEvaluator, so the fitness is recorded here
+                budget.record(job.getFitness(), evaluated);
+
+                double currentHighestFitness = engine.tribe.getHighestFitness();
+                if (currentHighestFitness > maxFitness) {
+                    maxFitness = currentHighestFitness;
+                    maxFitnessCycle = evaluated / populationSize;
+                }
+                if (evaluated / populationSize > cycle) {
+                    cycle = evaluated / populationSize;
+                    trace.record(cycle, evaluated, maxFitness, currentHighestFitness);
+                }
+            }
+        }
+        finally {
+            pipeline.shutdown();
+            trace.close();
+        }
+
+        if (config.printProgress) {
+            System.out.println(maxFitnessCycle);
+        }
+        return new RunResult(maxFitness, maxFitnessCycle, cycle + 1, budget.getUsed());
+    }
+
+    // Evaluates the initial population and ranks it
+    void initialize(BatchEvaluator evaluator) {
+        this.tribe.recalculateFitness(evaluator);
+        this.index.clear();
+        for (int row = 0; row < this.tribe.getSize(); row++) {
+            this.index.insert(row, this.tribe.getFitness(row));
+        }
+    }
+
+    // Breeds and evaluates children offspring, each replaces the worst row if it is fitter
+    void step(BatchEvaluator evaluator, int children) {
+        this.breed(children);
+        this.offspring.recalculateFitness(evaluator);
+        int dimensions = this.tribe.getDimensions();
+        for (int child = 0; child < this.offspring.getSize(); child++) {
+            this.fold(this.offspring.getGenomes(), child * dimensions, this.offspring.getFitness(child));
+        }
+    }
+
+    // Copies the next offspring into genome, breeding a new batch once the last one is used up
+    void nextChild(double[] genome) {
+        if (this.nursery >= this.offspring.getSize()) {
+            this.breed(this.offspringCount);
+            this.nursery = 0;
+        }
+        int dimensions = this.tribe.getDimensions();
+        System.arraycopy(this.offspring.getGenomes(), this.nursery++ * dimensions, genome, 0, dimensions);
+    }
+
+    // The evaluated genome at genomes[offset ..] replaces the worst row if it is fitter
+    void fold(double[] genomes, int offset, double fitness) {
+        int worst = this.index.worst();
+        if (fitness > this.tribe.getFitness(worst)) {
+            this.index.remove(worst);
+            this.tribe.replaceRow(worst, genomes, offset, fitness);
+            this.index.insert(worst, fitness);
+        }
+    }
+
+    // Replaces the offspring population by children new, unevaluated offspring
+    private void breed(int children) {
+        this.offspring.clearPopulation();
+        while (this.offspring.getSize() < children) {
+            if (children - this.offspring.getSize() >= 2 && this.random.nextDouble() < this.recombinationShare) {
+                this.parents[0] = this.selectParent(0);
+                this.parents[1] = this.selectParent(1);
+                if (this.parentSelectionType == ParentSelectionType.ROULETTE_WHEEL) {
+                    // Like the generational roulette, do not mate an individual with itself
+                    for (int attempt = 0; attempt < 8 && this.parents[1] == this.parents[0]; attempt++) {
+                        this.parents[1] = this.selectParent(1);
+                    }
+                }
+                this.tribe.recombineIndividualBySwappingTails(this.parents[0], this.parents[1], this.offspring);
+            }
+            else {
+                this.parents[0] = this.selectParent(0);
+                this.tribe.mutateRows(this.parents, 1, this.offspring);
+            }
+        }
+    }
+
+    // Row of a parent, drawn by rank. draw is the position of the parent within the step,
+    // FITTEST takes the draw-th fittest row.
+    private int selectParent(int draw) {
+        int size = this.index.size();
+        switch (this.parentSelectionType) {
+            case RANDOM:
+                return this.index.rowAtRank(this.random.nextInt(size));
+            case TOURNAMENT:
+                // The contestant with the highest rank is the fittest one
+                int highestRank = -1;
+                for (int i = 0; i < Constants.TOURNAMENT_SIZE; i++) {
+                    highestRank = Math.max(highestRank, this.random.nextInt(size));
+                }
+                return this.index.rowAtRank(highestRank);
+            case FITTEST:
+                return this.index.rowAtRank(size - 1 - draw % size);
+            case ROULETTE_WHEEL:
+            default:
+                return this.index.rowAtRank(this.drawRank());
+        }
+    }
+
+    // Rank-based roulette: binary search of a uniform draw in the cumulative table
+    private int drawRank() {
+        double u = this.random.nextDouble() * this.cumulativeRanking[this.cumulativeRanking.length - 1];
+        int low = 0;
+        int high = this.cumulativeRanking.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.cumulativeRanking[middle] > u) {
+                high = middle;
+            }
+            else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    public Population getPopulation() {
+        return this.tribe;
+    }
+}
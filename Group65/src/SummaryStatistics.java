@@ -0,0 +1,169 @@
+import java.util.Arrays;
+
+/**
+ * Single-pass summary of a stream of values in O(1) memory: count, mean and sample standard
+ * deviation (Welford), minimum, maximum, and the quartiles estimated with the P-square
+ * algorithm of Jain and Chlamtac. Quartiles are exact for up to five values.
+ */
+public class SummaryStatistics {
+    private int count;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileEstimator lowerQuartile = new QuantileEstimator(0.25);
+    private final QuantileEstimator median = new QuantileEstimator(0.5);
+    private final QuantileEstimator upperQuartile = new QuantileEstimator(0.75);
+
+    public void add(double value) {
+        this.count++;
+        double before = value - this.mean;
+        this.mean += before / this.count;
+        this.m2 += before * (value - this.mean);
+        this.min = Math.min(this.min, value);
+        this.max = Math.max(this.max, value);
+        this.lowerQuartile.add(value);
+        this.median.add(value);
+        this.upperQuartile.add(value);
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    // NaN without values, like the statistics below
+    public double getMean() {
+        return this.count > 0 ? this.mean : Double.NaN;
+    }
+
+    public double getStandardDeviation() {
+        if (this.count == 0) {
+            return Double.NaN;
+        }
+        return this.count > 1 ? Math.sqrt(this.m2 / (this.count - 1)) : 0;
+    }
+
+    public double getMin() {
+        return this.count > 0 ? this.min : Double.NaN;
+    }
+
+    public double getMax() {
+        return this.count > 0 ? this.max : Double.NaN;
+    }
+
+    public double getLowerQuartile() {
+        return this.lowerQuartile.get();
+    }
+
+    public double getMedian() {
+        return this.median.get();
+    }
+
+    public double getUpperQuartile() {
+        return this.upperQuartile.get();
+    }
+
+    // P-square estimator of one quantile: five markers whose heights follow the quantile and
+    // whose positions are adjusted with piecewise-parabolic interpolation
+    private static final class QuantileEstimator {
+        private final double p;
+        private final double[] heights = new double[5];
+        private final int[] positions = new int[5];
+        private final double[] desired = new double[5];
+        private final double[] increments = new double[5];
+        private int count;
+
+        QuantileEstimator(double p) {
+            this.p = p;
+        }
+
+        void add(double value) {
+            if (this.count < 5) {
+                this.heights[this.count++] = value;
+                if (this.count == 5) {
+                    Arrays.sort(this.heights);
+                    for (int i = 0; i < 5; i++) {
+                        this.positions[i] = i + 1;
+                    }
+                    this.desired[0] = 1;
+                    this.desired[1] = 1 + 2 * this.p;
+                    this.desired[2] = 1 + 4 * this.p;
+                    this.desired[3] = 3 + 2 * this.p;
+                    this.desired[4] = 5;
+                    this.increments[0] = 0;
+                    this.increments[1] = this.p / 2;
+                    this.increments[2] = this.p;
+                    this.increments[3] = (1 + this.p) / 2;
+                    this.increments[4] = 1;
+                }
+                return;
+            }
+
+            this.count++;
+            int cell;
+            if (value < this.heights[0]) {
+                this.heights[0] = value;
+                cell = 0;
+            }
+            else if (value >= this.heights[4]) {
+                this.heights[4] = value;
+                cell = 3;
+            }
+            else {
+                cell = 0;
+                while (value >= this.heights[cell + 1]) {
+                    cell++;
+                }
+            }
+            for (int i = cell + 1; i < 5; i++) {
+                this.positions[i]++;
+            }
+            for (int i = 0; i < 5; i++) {
+                this.desired[i] += this.increments[i];
+            }
+
+            for (int i = 1; i < 4; i++) {
+                double offset = this.desired[i] - this.positions[i];
+                if ((offset >= 1 && this.positions[i + 1] - this.positions[i] > 1)
+                    || (offset <= -1 && this.positions[i - 1] - this.positions[i] < -1)) {
+                    int step = offset > 0 ? 1 : -1;
+                    double height = this.parabolic(i, step);
+                    if (this.heights[i - 1] < height && height < this.heights[i + 1]) {
+                        this.heights[i] = height;
+                    }
+                    else {
+                        // Linear fallback keeps the markers ordered
+                        this.heights[i] += step * (this.heights[i + step] - this.heights[i])
+                            / (this.positions[i + step] - this.positions[i]);
+                    }
+                    this.positions[i] += step;
+                }
+            }
+        }
+
+        double get() {
+            if (this.count == 0) {
+                return Double.NaN;
+            }
+            if (this.count > 5) {
+                return this.heights[2];
+            }
+            // Exact quantile of the few values so far, linear interpolation between ranks
+            double[] sorted = Arrays.copyOf(this.heights, this.count);
+            Arrays.sort(sorted);
+            double rank = this.p * (this.count - 1);
+            int below = (int) Math.floor(rank);
+            int above = Math.min(below + 1, this.count - 1);
+            return sorted[below] + (rank - below) * (sorted[above] - sorted[below]);
+        }
+
+        private double parabolic(int i, int step) {
+            double n0 = this.positions[i - 1];
+            double n1 = this.positions[i];
+            double n2 = this.positions[i + 1];
+            return this.heights[i] + step / (n2 - n0)
+                * ((n1 - n0 + step) * (this.heights[i + 1] - this.heights[i]) / (n2 - n1)
+                + (n2 - n1 - step) * (this.heights[i] - this.heights[i - 1]) / (n1 - n0));
+        }
+    }
+}
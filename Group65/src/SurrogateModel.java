@@ -0,0 +1,133 @@
+import java.nio.ByteBuffer;
+
+/**
+ * k-nearest-neighbours fitness surrogate over an archive of already evaluated genomes. The
+ * archive is a ring buffer with the same row-major layout as Population, so learning a new
+ * evaluation is an O(dimensions) copy and the oldest evaluations drop out once it is full.
+ * A prediction is the inverse-distance weighted fitness of the k closest archived genomes,
+ * a brute-force O(archive * dimensions) scan, which stays in the microseconds per candidate
+ * for the archive sizes used here.
+ */
+public class SurrogateModel {
+    private final int dimensions;
+    private final int neighbours;
+    private final double[] genomes;
+    private final double[] fitness;
+    private final int capacity;
+    private int size;
+    private int next;
+    // Squared distance from the last predicted genome to its nearest archived genome
+    private double nearestDistance;
+
+    // Running k-best of one prediction, sorted by ascending distance
+    private final double[] bestDistances;
+    private final double[] bestFitness;
+
+    public SurrogateModel(int dimensions, int neighbours, int capacity) {
+        if (neighbours < 1) {
+            throw new IllegalArgumentException("Surrogate needs at least one neighbour, got " + neighbours);
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Surrogate archive size must be positive, got " + capacity);
+        }
+
+        this.dimensions = dimensions;
+        this.neighbours = neighbours;
+        this.capacity = capacity;
+        this.genomes = new double[capacity * dimensions];
+        this.fitness = new double[capacity];
+        this.bestDistances = new double[this.neighbours];
+        this.bestFitness = new double[this.neighbours];
+    }
+
+    public int getSize() {
+        return this.size;
+    }
+
+    // Predictions are only used once the archive holds a few times k evaluations
+    public boolean isReady() {
+        return this.size >= 4 * this.neighbours;
+    }
+
+    // 0 if the genome of the last predict call has been evaluated before
+    public double getNearestDistance() {
+        return this.nearestDistance;
+    }
+
+    public void add(double[] source, int offset, double value) {
+        System.arraycopy(source, offset, this.genomes, this.next * this.dimensions, this.dimensions);
+        this.fitness[this.next] = value;
+        this.next = (this.next + 1) % this.capacity;
+        if (this.size < this.capacity) {
+            this.size++;
+        }
+    }
+
+    // Bytes written by writeTo
+    public int encodedSize() {
+        return 5 * Integer.BYTES + (this.size * this.dimensions + this.size) * Double.BYTES;
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(this.dimensions);
+        buffer.putInt(this.neighbours);
+        buffer.putInt(this.capacity);
+        buffer.putInt(this.size);
+        buffer.putInt(this.next);
+        // The archive fills from row 0, so the first size rows are the valid ones
+        Checkpoint.putDoubles(buffer, this.genomes, this.size * this.dimensions);
+        Checkpoint.putDoubles(buffer, this.fitness, this.size);
+    }
+
+    public static SurrogateModel readFrom(ByteBuffer buffer) {
+        SurrogateModel model = new SurrogateModel(buffer.getInt(), buffer.getInt(), buffer.getInt());
+        model.size = buffer.getInt();
+        model.next = buffer.getInt();
+        Checkpoint.getDoubles(buffer, model.genomes, model.size * model.dimensions);
+        Checkpoint.getDoubles(buffer, model.fitness, model.size);
+        return model;
+    }
+
+    // Predicted fitness of the genome at source[offset .. offset + dimensions)
+    public double predict(double[] source, int offset) {
+        int found = 0;
+        for (int row = 0; row < this.size; row++) {
+            int archived = row * this.dimensions;
+            double distance = 0;
+            for (int j = 0; j < this.dimensions; j++) {
+                double difference = this.genomes[archived + j] - source[offset + j];
+                distance += difference * difference;
+            }
+
+            if (found == this.neighbours && distance >= this.bestDistances[found - 1]) {
+                continue;
+            }
+            // Insertion into the sorted k-best, k is small
+            int position = found < this.neighbours ? found++ : found - 1;
+            while (position > 0 && this.bestDistances[position - 1] > distance) {
+                this.bestDistances[position] = this.bestDistances[position - 1];
+                this.bestFitness[position] = this.bestFitness[position - 1];
+                position--;
+            }
+            this.bestDistances[position] = distance;
+            this.bestFitness[position] = this.fitness[row];
+        }
+
+        this.nearestDistance = found == 0 ? Double.POSITIVE_INFINITY : this.bestDistances[0];
+        if (found == 0) {
+            return 0;
+        }
+        double weightedSum = 0;
+        double weights = 0;
+        for (int i = 0; i < found; i++) {
+            if (this.bestDistances[i] == 0) {
+                // Already evaluated genome
+                return this.bestFitness[i];
+            }
+            double weight = 1 / Math.sqrt(this.bestDistances[i]);
+            weightedSum += weight * this.bestFitness[i];
+            weights += weight;
+        }
+        return weightedSum / weights;
+    }
+}
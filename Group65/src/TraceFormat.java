@@ -0,0 +1,10 @@
+public enum TraceFormat {
+    // No trace at all
+    NONE,
+    // The running maximum fitness, one line per cycle, as parsed by parameter_tuning.ps1
+    TEXT,
+    // cycle,evaluations,maxFitness,highestFitness with a header line
+    CSV,
+    // Big-endian records of int cycle, int evaluations, double maxFitness, double highestFitness
+    BINARY
+}
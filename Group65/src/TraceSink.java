@@ -0,0 +1,18 @@
+/**
+ * Receives the convergence trace of a run, one record per cycle. Implementations are fed from
+ * the thread that runs the generation loop only.
+ */
+public interface TraceSink {
+    void record(int cycle, int evaluations, double maxFitness, double highestFitness);
+
+    // Writes out everything recorded so far and releases the sink
+    void close();
+
+    TraceSink NULL = new TraceSink() {
+        public void record(int cycle, int evaluations, double maxFitness, double highestFitness) {
+        }
+
+        public void close() {
+        }
+    };
+}
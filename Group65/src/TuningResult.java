@@ -0,0 +1,76 @@
+import java.util.Arrays;
+
+/**
+ * Scores of all runs of one configuration during a tuning session.
+ */
+public class TuningResult {
+    public final EvolutionConfig config;
+    private double[] scores = new double[4];
+    private double cycleSum;
+    private int runs;
+
+    public TuningResult(EvolutionConfig config) {
+        this.config = config;
+    }
+
+    void add(double score, RunResult result) {
+        if (this.runs == this.scores.length) {
+            this.scores = Arrays.copyOf(this.scores, this.runs * 2);
+        }
+        this.scores[this.runs++] = score;
+        this.cycleSum += result.maxFitnessCycle;
+    }
+
+    public int getRuns() {
+        return this.runs;
+    }
+
+    public double getMean() {
+        double sum = 0;
+        for (int i = 0; i < this.runs; i++) {
+            sum += this.scores[i];
+        }
+        return sum / this.runs;
+    }
+
+    public double getStandardDeviation() {
+        if (this.runs < 2) {
+            return 0;
+        }
+        double mean = this.getMean();
+        double numerator = 0;
+        for (int i = 0; i < this.runs; i++) {
+            double deviation = this.scores[i] - mean;
+            numerator += deviation * deviation;
+        }
+        return Math.sqrt(numerator / (this.runs - 1));
+    }
+
+    public double getMin() {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.runs; i++) {
+            min = Math.min(min, this.scores[i]);
+        }
+        return min;
+    }
+
+    public double getMax() {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < this.runs; i++) {
+            max = Math.max(max, this.scores[i]);
+        }
+        return max;
+    }
+
+    // Average cycle in which the best fitness of a run was found
+    public double getMeanMaxFitnessCycle() {
+        return this.cycleSum / this.runs;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("population %d, fittest %d, recombination %d, mutation %d: runs %d, mean %.6f, sd %.6f, min %.6f, max %.6f, avg cycle found %.1f",
+            this.config.populationSize, this.config.fittestSize, this.config.recombinationSize, this.config.mutationSize,
+            this.runs, this.getMean(), this.getStandardDeviation(), this.getMin(), this.getMax(), this.getMeanMaxFitnessCycle());
+    }
+}
@@ -0,0 +1,5 @@
+public enum TuningStrategy {
+    GRID,
+    RANDOM,
+    SUCCESSIVE_HALVING
+}
@@ -0,0 +1,38 @@
+/**
+ * Per-dimension loops of the variation operators and the mutation statistics, on the flat
+ * row-major genome matrix of Population. SCALAR is plain Java and always available; the Vector
+ * API backend in vector/VectorVariationKernels.java is optional, see load. Both backends do
+ * the same operations in the same order per dimension, so they give identical results.
+ */
+public interface VariationKernels {
+    VariationKernels SCALAR = new ScalarVariationKernels();
+
+    // Whole arithmetic recombination: firstChild = weight * first + (1 - weight) * second and vice versa
+    void blend(double[] genomes, int first, int second, double[] target, int firstChild, int secondChild, int dimensions, double weight);
+
+    // target[destination + j] = genomes[source + j] + step[j], clamped to [lower, upper]
+    void mutate(double[] genomes, int source, double[] target, int destination, double[] step, int dimensions, double lower, double upper);
+
+    // Adds the column sums of the first rows to sums
+    void sumRows(double[] genomes, int rows, int dimensions, double[] sums);
+
+    // Adds the column sums of (gene - mean)^2 of the first rows to sums
+    void sumSquaredDeviations(double[] genomes, int rows, int dimensions, double[] mean, double[] sums);
+
+    // The Vector API backend if requested and it can be loaded, SCALAR otherwise. The backend is
+    // compiled separately because jdk.incubator.vector has to be added explicitly:
+    //   javac --add-modules jdk.incubator.vector -cp . -d . vector/VectorVariationKernels.java
+    //   java --add-modules jdk.incubator.vector -DvectorKernels=true ...
+    static VariationKernels load(boolean vector) {
+        if (!vector) {
+            return SCALAR;
+        }
+        try {
+            return (VariationKernels) Class.forName("VectorVariationKernels").getDeclaredConstructor().newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError e) {
+            System.err.println("Vector kernels unavailable, using scalar kernels: " + e);
+            return SCALAR;
+        }
+    }
+}
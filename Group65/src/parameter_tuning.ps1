@@ -1,3 +1,7 @@
+# Parameter search (TuneFunction) is also available in-process and cross-platform:
+#   java -cp contest.jar:. ParameterTuner -evaluation=SphereEvaluation -strategy=SUCCESSIVE_HALVING
+# Multi-seed statistics as CSV instead of spreadsheets:
+#   java -cp contest.jar:. ExperimentRunner -functions=SphereEvaluation -seeds=1-10 -runs=runs.csv
 function CalculateAverage
 {
     Param ([double[]]$array)
@@ -93,28 +97,13 @@ function InvokeFunction
             $minScore = $currentScore
         }
 
-        if ($avgScore -eq -1) 
-        {
-            $avgScore = $currentScore
-        }
-        else 
-        {
-            $avgScore = ($currentScore + $avgScore)/2
-        }
-
-        if ($avgCycleNumber -eq -1) 
-        {
-            $avgCycleNumber = $cycleNumber
-        }
-        else 
-        {
-            $avgCycleNumber = ($cycleNumber + $avgCycleNumber)/2
-        }
-
         $i++
         Start-Sleep -Seconds 1
     }
 
+    # Means over all runs (a running (x + avg) / 2 weighs the last run by one half)
+    $avgScore = CalculateAverage $scores
+    $avgCycleNumber = CalculateAverage $cycles
     $scoresStandardDeviation = CalculateStandardDeviation $scores
     $cyclesStandardDeviation = CalculateStandardDeviation $cycles
 
@@ -42,6 +42,7 @@ public class player65 implements ContestSubmission
 	{
 		// Set seed of algortihms random process
 		rnd_.setSeed(seed);
+		RandomStream.setSeed(seed);
 	}
 
 	public void setEvaluation(ContestEvaluation evaluation)
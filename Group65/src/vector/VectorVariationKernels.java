@@ -0,0 +1,86 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * VariationKernels on the incubating Vector API, one lane per dimension. Rows are row-major, so
+ * consecutive dimensions of a genome are contiguous and load as one vector; the remaining
+ * dimensions of each row go through the scalar loop. Lives outside the main source directory
+ * because it only compiles with --add-modules jdk.incubator.vector, see VariationKernels.load.
+ */
+public class VectorVariationKernels implements VariationKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    public void blend(double[] genomes, int first, int second, double[] target, int firstChild, int secondChild, int dimensions, double weight) {
+        double other = 1 - weight;
+        int bound = SPECIES.loopBound(dimensions);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector a = DoubleVector.fromArray(SPECIES, genomes, first + i);
+            DoubleVector b = DoubleVector.fromArray(SPECIES, genomes, second + i);
+            a.mul(weight).add(b.mul(other)).intoArray(target, firstChild + i);
+            b.mul(weight).add(a.mul(other)).intoArray(target, secondChild + i);
+        }
+        for (; i < dimensions; i++) {
+            target[firstChild + i] = weight * genomes[first + i] + other * genomes[second + i];
+            target[secondChild + i] = weight * genomes[second + i] + other * genomes[first + i];
+        }
+    }
+
+    public void mutate(double[] genomes, int source, double[] target, int destination, double[] step, int dimensions, double lower, double upper) {
+        int bound = SPECIES.loopBound(dimensions);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, genomes, source + j)
+                .add(DoubleVector.fromArray(SPECIES, step, j))
+                .max(lower)
+                .min(upper)
+                .intoArray(target, destination + j);
+        }
+        for (; j < dimensions; j++) {
+            target[destination + j] = Math.min(Math.max(genomes[source + j] + step[j], lower), upper);
+        }
+    }
+
+    // Lanes outer, rows inner: the running sums stay in registers and every lane still adds
+    // the rows in the same order as the scalar loop
+    public void sumRows(double[] genomes, int rows, int dimensions, double[] sums) {
+        int bound = SPECIES.loopBound(dimensions);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            DoubleVector sum = DoubleVector.fromArray(SPECIES, sums, j);
+            for (int offset = j, i = 0; i < rows; i++, offset += dimensions) {
+                sum = sum.add(DoubleVector.fromArray(SPECIES, genomes, offset));
+            }
+            sum.intoArray(sums, j);
+        }
+        for (; j < dimensions; j++) {
+            double sum = sums[j];
+            for (int offset = j, i = 0; i < rows; i++, offset += dimensions) {
+                sum += genomes[offset];
+            }
+            sums[j] = sum;
+        }
+    }
+
+    public void sumSquaredDeviations(double[] genomes, int rows, int dimensions, double[] mean, double[] sums) {
+        int bound = SPECIES.loopBound(dimensions);
+        int j = 0;
+        for (; j < bound; j += SPECIES.length()) {
+            DoubleVector average = DoubleVector.fromArray(SPECIES, mean, j);
+            DoubleVector sum = DoubleVector.fromArray(SPECIES, sums, j);
+            for (int offset = j, i = 0; i < rows; i++, offset += dimensions) {
+                DoubleVector deviation = DoubleVector.fromArray(SPECIES, genomes, offset).sub(average);
+                sum = sum.add(deviation.mul(deviation));
+            }
+            sum.intoArray(sums, j);
+        }
+        for (; j < dimensions; j++) {
+            double sum = sums[j];
+            for (int offset = j, i = 0; i < rows; i++, offset += dimensions) {
+                double deviation = genomes[offset] - mean[j];
+                sum += deviation * deviation;
+            }
+            sums[j] = sum;
+        }
+    }
+}